@@ -0,0 +1,32 @@
+import java.util.concurrent.ThreadLocalRandom;
+
+// Exponential backoff with jitter for move pacing. Every failed attempt doubles the delay up to
+// the cap and adds up to half of it at random, so robots stuck behind the same cell spread out
+// their retries instead of colliding again in lockstep. A successful move resets it.
+public class Backoff implements java.io.Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final long baseMillis;
+    private final long maxMillis;
+    private int failures = 0;
+
+    public Backoff(long baseMillis, long maxMillis) {
+        this.baseMillis = baseMillis;
+        this.maxMillis = maxMillis;
+    }
+
+    // Delay before the next attempt after one more failure
+    public long fail() {
+        failures = Math.min(failures + 1, 30);
+        long delay = Math.min(maxMillis, baseMillis << Math.min(failures - 1, 20));
+        return delay + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    public void reset() {
+        failures = 0;
+    }
+
+    public int getFailures() {
+        return failures;
+    }
+}
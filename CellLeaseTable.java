@@ -0,0 +1,246 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Time-bounded leases on cells. The occupant of a cell holds its lease and keeps it alive with
+// heartbeats; a robot that wants the cell is queued once and is granted the lease automatically
+// when the holder releases it or stops heartbeating. Grants are delivered to the waiting
+// robot's grant queue, so nobody has to keep resending REQUESTs to find out.
+// TTLs and waiting times are simulated milliseconds on the grid's clock. At high speeds the
+// TTL is stretched so it never lasts less than a floor of wall-clock time: JADE delivers
+// messages and schedules agents in wall time, and a loaded agent would otherwise miss its
+// heartbeats and lose a cell it is still standing in.
+public class CellLeaseTable {
+    public static final long DEFAULT_TTL_MS = 2000;
+    public static final long DEFAULT_MIN_WALL_TTL_MS = 500;
+
+    private final long ttlMillis;
+    private final long minWallTtlMillis;
+    private final SimulationClock clock;
+    private final Map<Integer, Lease> leases = new HashMap<>(); // by cell index x * cols + y
+    private final Map<String, Integer> waitingFor = new HashMap<>(); // requester -> the one cell it waits for
+    private final Map<String, Queue<Integer>> grantQueues = new ConcurrentHashMap<>();
+    private final Map<String, Runnable> wakers = new ConcurrentHashMap<>(); // wake a sleeping agent on a grant
+    private final ScheduledExecutorService sweeper;
+
+    private static class Grant {
+        final String robotId;
+        final int cell;
+
+        Grant(String robotId, int cell) {
+            this.robotId = robotId;
+            this.cell = cell;
+        }
+    }
+
+    private static class Lease {
+        String holder; // null while the cell is free and unleased
+        long expiresAt;
+        boolean pinned; // holder is at rest and does not heartbeat; never expires
+        final LinkedHashMap<String, Long> waiters = new LinkedHashMap<>(); // requester -> queued at, FIFO
+    }
+
+    public CellLeaseTable(long ttlMillis, long minWallTtlMillis, SimulationClock clock) {
+        this.ttlMillis = ttlMillis;
+        this.minWallTtlMillis = minWallTtlMillis;
+        this.clock = clock;
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "cell-lease-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduleSweep();
+    }
+
+    // Rescheduled after every sweep so the period follows the clock speed
+    private void scheduleSweep() {
+        sweeper.schedule(() -> {
+            expireLeases();
+            scheduleSweep();
+        }, clock.toWall(Math.max(10, getTtlMillis() / 4)), TimeUnit.MILLISECONDS);
+    }
+
+    // Effective TTL in simulated milliseconds at the current clock speed; agents heartbeat by it
+    public long getTtlMillis() {
+        return Math.max(ttlMillis, minWallTtlMillis * clock.getSpeed().getFactor());
+    }
+
+    // ============ ROBOTS ============
+
+    // Grants for this robot (cell indices) appear in the returned queue; waker, if given, is
+    // run after each delivery so an agent sleeping until its next event notices it
+    public Queue<Integer> register(String robotId, Runnable waker) {
+        if (waker != null) {
+            wakers.put(robotId, waker);
+        }
+        return grantQueues.computeIfAbsent(robotId, k -> new ConcurrentLinkedQueue<>());
+    }
+
+    public Queue<Integer> register(String robotId) {
+        return register(robotId, null);
+    }
+
+    public synchronized void unregister(String robotId) {
+        grantQueues.remove(robotId);
+        wakers.remove(robotId);
+        cancel(robotId);
+    }
+
+    // ============ LEASES ============
+
+    // The robot now occupies the cell; it holds the lease and leaves the wait queue for it
+    public synchronized void acquire(int cell, String holder) {
+        Lease lease = leases.computeIfAbsent(cell, k -> new Lease());
+        lease.holder = holder;
+        lease.expiresAt = clock.now() + getTtlMillis();
+        lease.pinned = false;
+        if (lease.waiters.remove(holder) != null) {
+            waitingFor.remove(holder);
+        }
+    }
+
+    // Extends the holder's lease; false if it no longer holds it
+    public synchronized boolean heartbeat(int cell, String holder) {
+        Lease lease = leases.get(cell);
+        if (lease == null || !holder.equals(lease.holder)) {
+            return false;
+        }
+        lease.expiresAt = clock.now() + getTtlMillis();
+        lease.pinned = false; // Heartbeating again: back under the TTL
+        return true;
+    }
+
+    // The holder is at rest in the cell (parked, or at its target) and stops heartbeating; the
+    // lease stays until it is released. False if it does not hold the lease.
+    public synchronized boolean pin(int cell, String holder) {
+        Lease lease = leases.get(cell);
+        if (lease == null || !holder.equals(lease.holder)) {
+            return false;
+        }
+        lease.pinned = true;
+        return true;
+    }
+
+    // The holder left the cell: hand the lease to the longest waiting requester
+    public void release(int cell, String holder) {
+        List<Grant> grants = new ArrayList<>(1);
+        synchronized (this) {
+            Lease lease = leases.get(cell);
+            if (lease == null || !holder.equals(lease.holder)) {
+                return;
+            }
+            passOn(cell, lease, grants);
+        }
+        deliver(grants);
+    }
+
+    // True if another robot currently holds the cell's lease
+    public synchronized boolean isLeasedToOther(int cell, String robotId) {
+        Lease lease = leases.get(cell);
+        return lease != null && lease.holder != null && !lease.holder.equals(robotId) &&
+                lease.expiresAt > clock.now();
+    }
+
+    // ============ WAITERS ============
+
+    // Queues the requester for the cell; a robot waits for one cell at a time, so any earlier
+    // wait is dropped. Returns false when it was already queued for this cell.
+    public synchronized boolean enqueue(int cell, String requester) {
+        Integer current = waitingFor.get(requester);
+        if (current != null && current == cell) {
+            return false;
+        }
+        cancel(requester);
+        leases.computeIfAbsent(cell, k -> new Lease()).waiters.put(requester, clock.now());
+        waitingFor.put(requester, cell);
+        return true;
+    }
+
+    public synchronized void cancel(String requester) {
+        Integer cell = waitingFor.remove(requester);
+        if (cell != null) {
+            Lease lease = leases.get(cell);
+            if (lease != null) {
+                lease.waiters.remove(requester);
+                if (lease.holder == null && lease.waiters.isEmpty()) {
+                    leases.remove(cell);
+                }
+            }
+        }
+    }
+
+    public synchronized boolean isWaiting(int cell, String requester) {
+        Integer current = waitingFor.get(requester);
+        return current != null && current == cell;
+    }
+
+    public synchronized int getWaiterCount(int cell) {
+        Lease lease = leases.get(cell);
+        return lease == null ? 0 : lease.waiters.size();
+    }
+
+    // How long the longest waiting requester has been queued, 0 if none
+    public synchronized long getOldestWaitMillis(int cell) {
+        Lease lease = leases.get(cell);
+        if (lease == null || lease.waiters.isEmpty()) {
+            return 0;
+        }
+        return clock.now() - lease.waiters.values().iterator().next();
+    }
+
+    // ============ EXPIRY ============
+
+    private void expireLeases() {
+        List<Grant> grants = new ArrayList<>();
+        synchronized (this) {
+            long now = clock.now();
+            for (Map.Entry<Integer, Lease> entry : new ArrayList<>(leases.entrySet())) {
+                Lease lease = entry.getValue();
+                if (lease.holder != null && !lease.pinned && lease.expiresAt <= now) {
+                    passOn(entry.getKey(), lease, grants);
+                }
+            }
+        }
+        deliver(grants);
+    }
+
+    // Moves the lease to the first waiter (or frees it) and records the grant for delivery
+    private void passOn(int cell, Lease lease, List<Grant> grants) {
+        Iterator<String> it = lease.waiters.keySet().iterator();
+        if (it.hasNext()) {
+            String next = it.next();
+            it.remove();
+            waitingFor.remove(next);
+            lease.holder = next;
+            lease.expiresAt = clock.now() + getTtlMillis(); // Time to step in before it lapses
+            lease.pinned = false;
+            grants.add(new Grant(next, cell));
+        } else {
+            lease.holder = null;
+            leases.remove(cell);
+        }
+    }
+
+    // Outside the table lock so a waking agent never contends with it
+    private void deliver(List<Grant> grants) {
+        for (Grant grant : grants) {
+            Queue<Integer> queue = grantQueues.get(grant.robotId);
+            if (queue != null) {
+                queue.add(grant.cell);
+                Runnable waker = wakers.get(grant.robotId);
+                if (waker != null) {
+                    waker.run();
+                }
+            }
+        }
+    }
+}
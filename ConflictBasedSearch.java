@@ -0,0 +1,384 @@
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+// Conflict-Based Search for collision-free timed paths of all moving robots.
+// The high level keeps a focal list (bounded-suboptimal CBS): any node whose makespan is within
+// weight * lowest bound may be expanded, preferring nodes with the fewest conflicts. A weight
+// of 1 gives classic makespan-optimal CBS. solve() starts with the given weight and tightens it
+// while the time budget lasts, returning the best solution found.
+public class ConflictBasedSearch {
+
+    public static class AgentSpec {
+        private final String id;
+        private final int startX, startY, targetX, targetY;
+
+        public AgentSpec(String id, int startX, int startY, int targetX, int targetY) {
+            this.id = id;
+            this.startX = startX;
+            this.startY = startY;
+            this.targetX = targetX;
+            this.targetY = targetY;
+        }
+
+        public String getId() { return id; }
+    }
+
+    public static class Solution {
+        private final Map<String, int[]> paths; // cell index per time step, t = 0 is the start cell
+        private final int makespan;
+        private final double suboptimalityBound; // makespan / best proven lower bound
+        private final int highLevelExpansions;
+        private final long elapsedNanos;
+
+        Solution(Map<String, int[]> paths, int makespan, double suboptimalityBound,
+                 int highLevelExpansions, long elapsedNanos) {
+            this.paths = paths;
+            this.makespan = makespan;
+            this.suboptimalityBound = suboptimalityBound;
+            this.highLevelExpansions = highLevelExpansions;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public int[] getPath(String robotId) { return paths.get(robotId); }
+        public int getMakespan() { return makespan; }
+        public double getSuboptimalityBound() { return suboptimalityBound; }
+        public boolean isOptimal() { return suboptimalityBound <= 1.0; }
+        public int getHighLevelExpansions() { return highLevelExpansions; }
+        public long getElapsedNanos() { return elapsedNanos; }
+    }
+
+    // Constraint tree node; constraints are stored as a chain through the parents
+    private static class CTNode {
+        final CTNode parent;
+        final int agent, cell, time; // constraint added by this node, agent = -1 at the root
+        int[][] paths;
+        int cost; // makespan of this node's paths, also a lower bound for its subtree
+
+        CTNode(CTNode parent, int agent, int cell, int time) {
+            this.parent = parent;
+            this.agent = agent;
+            this.cell = cell;
+            this.time = time;
+        }
+    }
+
+    // Space-time search node for the low level
+    private static class StateNode {
+        final int cell, time, f, conflicts;
+        final StateNode parent;
+
+        StateNode(int cell, int time, int f, int conflicts, StateNode parent) {
+            this.cell = cell;
+            this.time = time;
+            this.f = f;
+            this.conflicts = conflicts;
+            this.parent = parent;
+        }
+    }
+
+    private static final int[] DX = {0, -1, 1, 0, 0}; // index 0 is "wait"
+    private static final int[] DY = {0, 0, 0, -1, 1};
+
+    private final int rows;
+    private final int cols;
+    private final boolean[] blocked;
+    private final double initialWeight;
+    private final long timeBudgetNanos;
+    private long deadline;
+    private int highLevelExpansions;
+    private int[][] goalDistances;
+
+    public ConflictBasedSearch(Grid grid, double suboptimality, long timeBudgetMillis) {
+        this.rows = grid.getRows();
+        this.cols = grid.getCols();
+        this.initialWeight = Math.max(1.0, suboptimality);
+        this.timeBudgetNanos = timeBudgetMillis * 1_000_000L;
+        this.blocked = new boolean[rows * cols];
+        GridSnapshot view = grid.snapshot(); // consistent without holding up moving robots
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                RobotAgent robot = view.getRobotAt(i, j);
+                // Static robots are planned around like obstacles
+                blocked[i * cols + j] = view.isCellBlocked(i, j) || (robot != null && robot.isStatic());
+            }
+        }
+    }
+
+    // Returns null if no solution was found within the time budget
+    public Solution solve(List<AgentSpec> agents) {
+        long start = System.nanoTime();
+        deadline = start + timeBudgetNanos;
+        highLevelExpansions = 0;
+
+        int n = agents.size();
+        int[] starts = new int[n];
+        int[] goals = new int[n];
+        goalDistances = new int[n][];
+        for (int i = 0; i < n; i++) {
+            AgentSpec spec = agents.get(i);
+            starts[i] = spec.startX * cols + spec.startY;
+            goals[i] = spec.targetX * cols + spec.targetY;
+            goalDistances[i] = distancesTo(goals[i]);
+            if (goalDistances[i][starts[i]] == Integer.MAX_VALUE) {
+                return null; // Target unreachable even without other robots
+            }
+        }
+
+        double weight = initialWeight;
+        int[][] bestPaths = null;
+        int bestCost = Integer.MAX_VALUE;
+        int bestLowerBound = 0;
+        while (System.nanoTime() < deadline) {
+            int[] lowerBound = new int[1];
+            int[][] paths = search(starts, goals, weight, lowerBound);
+            if (paths == null) {
+                break; // Out of time (or unsolvable)
+            }
+            bestLowerBound = Math.max(bestLowerBound, lowerBound[0]);
+            int cost = makespan(paths);
+            if (cost < bestCost) {
+                bestCost = cost;
+                bestPaths = paths;
+            }
+            if (weight <= 1.0 || bestCost <= bestLowerBound) {
+                break; // Proven optimal
+            }
+            weight = 1.0 + (weight - 1.0) / 2.0;
+            if (weight < 1.01) weight = 1.0;
+        }
+
+        if (bestPaths == null) {
+            return null;
+        }
+        Map<String, int[]> result = new LinkedHashMap<>();
+        for (int i = 0; i < n; i++) {
+            result.put(agents.get(i).getId(), padToLength(bestPaths[i], bestCost + 1));
+        }
+        double bound = bestLowerBound == 0 ? 1.0 : (double) bestCost / bestLowerBound;
+        return new Solution(result, bestCost, bound, highLevelExpansions, System.nanoTime() - start);
+    }
+
+    // ============ HIGH LEVEL ============
+
+    private int[][] search(int[] starts, int[] goals, double weight, int[] lowerBoundOut) {
+        int n = starts.length;
+        CTNode root = new CTNode(null, -1, -1, -1);
+        root.paths = new int[n][];
+        for (int i = 0; i < n; i++) {
+            root.paths[i] = lowLevel(i, starts[i], goals[i], root, root.paths);
+            if (root.paths[i] == null) return null;
+        }
+        root.cost = makespan(root.paths);
+
+        PriorityQueue<CTNode> open = new PriorityQueue<>((a, b) -> Integer.compare(a.cost, b.cost));
+        open.add(root);
+
+        while (!open.isEmpty()) {
+            if (System.nanoTime() > deadline) return null;
+            int minCost = open.peek().cost;
+            lowerBoundOut[0] = minCost;
+
+            // Focal list: within weight of the best bound, fewest conflicts first
+            CTNode node = null;
+            int nodeConflicts = Integer.MAX_VALUE;
+            for (CTNode candidate : open) {
+                if (candidate.cost > weight * minCost) continue;
+                int conflicts = countConflicts(candidate.paths);
+                if (conflicts < nodeConflicts || (conflicts == nodeConflicts && candidate.cost < node.cost)) {
+                    node = candidate;
+                    nodeConflicts = conflicts;
+                }
+            }
+            open.remove(node);
+            highLevelExpansions++;
+
+            int[] conflict = firstConflict(node.paths);
+            if (conflict == null) {
+                return node.paths;
+            }
+
+            // conflict = {agentA, agentB, cell, timeA, timeB}
+            for (int side = 0; side < 2; side++) {
+                int agent = conflict[side];
+                CTNode child = new CTNode(node, agent, conflict[2], conflict[3 + side]);
+                child.paths = node.paths.clone();
+                child.paths[agent] = lowLevel(agent, starts[agent], goals[agent], child, child.paths);
+                if (child.paths[agent] == null) continue;
+                child.cost = makespan(child.paths);
+                open.add(child);
+            }
+        }
+        return null;
+    }
+
+    // Robots execute asynchronously, so a robot may not enter a cell at t if another one
+    // holds it at t-1 (this also rules out swaps). Returns null when the paths are compatible.
+    private int[] firstConflict(int[][] paths) {
+        int horizon = makespan(paths) + 1;
+        for (int t = 0; t <= horizon; t++) {
+            for (int a = 0; a < paths.length; a++) {
+                int cellA = cellAt(paths[a], t);
+                for (int b = 0; b < paths.length; b++) {
+                    if (a == b) continue;
+                    if (a < b && cellA == cellAt(paths[b], t)) {
+                        return new int[]{a, b, cellA, t, t};
+                    }
+                    if (t > 0 && cellA == cellAt(paths[b], t - 1) && cellA != cellAt(paths[a], t - 1)) {
+                        return new int[]{a, b, cellA, t, t - 1};
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private int countConflicts(int[][] paths) {
+        int count = 0;
+        int horizon = makespan(paths) + 1;
+        for (int t = 0; t <= horizon; t++) {
+            for (int a = 0; a < paths.length; a++) {
+                int cellA = cellAt(paths[a], t);
+                for (int b = a + 1; b < paths.length; b++) {
+                    if (cellA == cellAt(paths[b], t)) count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    // ============ LOW LEVEL (space-time A*) ============
+
+    private int[] lowLevel(int agent, int start, int goal, CTNode node, int[][] paths) {
+        Set<Long> constraints = new HashSet<>();
+        int lastConstraint = 0;
+        int lastGoalConstraint = -1;
+        for (CTNode c = node; c != null; c = c.parent) {
+            if (c.agent != agent) continue;
+            constraints.add(stateKey(c.cell, c.time));
+            lastConstraint = Math.max(lastConstraint, c.time);
+            if (c.cell == goal) lastGoalConstraint = Math.max(lastGoalConstraint, c.time);
+        }
+
+        // Where the other robots are, used only to break ties toward fewer conflicts
+        Map<Long, Integer> reserved = new HashMap<>();
+        int[] parkedFrom = new int[rows * cols];
+        Arrays.fill(parkedFrom, Integer.MAX_VALUE);
+        for (int other = 0; other < paths.length; other++) {
+            if (other == agent || paths[other] == null) continue;
+            int[] p = paths[other];
+            for (int t = 0; t < p.length; t++) {
+                reserved.merge(stateKey(p[t], t), 1, Integer::sum);
+            }
+            int last = p[p.length - 1];
+            parkedFrom[last] = Math.min(parkedFrom[last], p.length - 1);
+        }
+
+        int[] h = goalDistances[agent];
+        int horizon = lastConstraint + rows * cols + 1;
+        PriorityQueue<StateNode> open = new PriorityQueue<>((a, b) -> {
+            if (a.f != b.f) return Integer.compare(a.f, b.f);
+            if (a.conflicts != b.conflicts) return Integer.compare(a.conflicts, b.conflicts);
+            return Integer.compare(b.time, a.time);
+        });
+        Set<Long> closed = new HashSet<>();
+        open.add(new StateNode(start, 0, h[start], 0, null));
+
+        int expanded = 0;
+        while (!open.isEmpty()) {
+            StateNode current = open.poll();
+            if (!closed.add(stateKey(current.cell, current.time))) continue;
+            if (current.cell == goal && current.time > lastGoalConstraint) {
+                return buildPath(current);
+            }
+            if ((++expanded & 1023) == 0 && System.nanoTime() > deadline) {
+                return null;
+            }
+            if (current.time >= horizon) continue;
+
+            int x = current.cell / cols, y = current.cell % cols;
+            int t = current.time + 1;
+            for (int d = 0; d < DX.length; d++) {
+                int nx = x + DX[d], ny = y + DY[d];
+                if (nx < 0 || nx >= rows || ny < 0 || ny >= cols) continue;
+                int next = nx * cols + ny;
+                if (blocked[next] || h[next] == Integer.MAX_VALUE) continue;
+                if (constraints.contains(stateKey(next, t)) || closed.contains(stateKey(next, t))) continue;
+                int conflicts = current.conflicts + occupancy(reserved, parkedFrom, next, t)
+                        + occupancy(reserved, parkedFrom, next, t - 1);
+                open.add(new StateNode(next, t, t + h[next], conflicts, current));
+            }
+        }
+        return null;
+    }
+
+    private static int occupancy(Map<Long, Integer> reserved, int[] parkedFrom, int cell, int time) {
+        int count = reserved.getOrDefault(stateKey(cell, time), 0);
+        if (parkedFrom[cell] < time) count++;
+        return count;
+    }
+
+    private static int[] buildPath(StateNode goalNode) {
+        int[] path = new int[goalNode.time + 1];
+        for (StateNode s = goalNode; s != null; s = s.parent) {
+            path[s.time] = s.cell;
+        }
+        return path;
+    }
+
+    // BFS distances over static obstacles, used as the exact-on-empty-grid heuristic
+    private int[] distancesTo(int goal) {
+        int[] dist = new int[rows * cols];
+        Arrays.fill(dist, Integer.MAX_VALUE);
+        if (blocked[goal]) return dist;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        dist[goal] = 0;
+        queue.add(goal);
+        while (!queue.isEmpty()) {
+            int cell = queue.poll();
+            int x = cell / cols, y = cell % cols;
+            for (int d = 1; d < DX.length; d++) {
+                int nx = x + DX[d], ny = y + DY[d];
+                if (nx < 0 || nx >= rows || ny < 0 || ny >= cols) continue;
+                int next = nx * cols + ny;
+                if (!blocked[next] && dist[next] == Integer.MAX_VALUE) {
+                    dist[next] = dist[cell] + 1;
+                    queue.add(next);
+                }
+            }
+        }
+        return dist;
+    }
+
+    // ============ HELPERS ============
+
+    private static int cellAt(int[] path, int time) {
+        return path[Math.min(time, path.length - 1)];
+    }
+
+    private static int makespan(int[][] paths) {
+        int max = 0;
+        for (int[] p : paths) {
+            max = Math.max(max, p.length - 1);
+        }
+        return max;
+    }
+
+    private static int[] padToLength(int[] path, int length) {
+        int[] padded = Arrays.copyOf(path, Math.max(length, path.length));
+        for (int t = path.length; t < padded.length; t++) {
+            padded[t] = path[path.length - 1];
+        }
+        return padded;
+    }
+
+    private static long stateKey(int cell, int time) {
+        return ((long) time << 32) | cell;
+    }
+}
@@ -0,0 +1,243 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+// Append-only binary log of grid mutations and ACL traffic, read back by JournalReplayer.
+// Callers only stamp a sequence number and queue an entry; a writer thread encodes entries
+// into a buffer and hands it to the FileChannel, so agents never wait on the disk.
+//
+// File layout: header (MAGIC, VERSION, rows, cols, site layout file, layout revision) followed by records of
+// [int length][long seq][long nanos since start][byte type][type-specific fields].
+// Strings are written as a short byte length (-1 for null) and UTF-8 bytes.
+public class EventJournal implements AutoCloseable {
+    public static final int MAGIC = 0x524A4E4C; // "RJNL"
+    public static final int VERSION = 2;
+
+    public static final byte SPAWN = 1;   // robotId, x, y, targetX, targetY, isStatic, rgb
+    public static final byte OCCUPY = 2;  // robotId, x, y
+    public static final byte FREE = 3;    // x, y
+    public static final byte BLOCK = 4;   // x, y, blocked
+    public static final byte CLEAR_BLOCKS = 5;
+    public static final byte SEND = 6;    // owner, performative, receivers, content, conversationId
+    public static final byte RECEIVE = 7; // owner, performative, sender, content, conversationId
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Entry POISON = new Entry();
+
+    private final FileChannel channel;
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final Object appendLock = new Object(); // keeps queue order equal to sequence order
+    private final long startNanos = System.nanoTime();
+    private final Thread writer;
+    private long nextSeq = 0;
+    private volatile boolean closed = false;
+    private volatile IOException failure;
+
+    // One queued record; field meaning depends on type (see the constants above)
+    static final class Entry {
+        long seq, nanos;
+        byte type;
+        int x, y, flag, tx, ty, rgb;
+        String a, b, c, d;
+    }
+
+    // The journal names the grid's mapped layout (null for none) rather than listing its cells;
+    // a replay starts from that layout
+    public EventJournal(Path file, int rows, int cols, MappedObstacleMap layout) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        byte[] layoutFile = (layout == null ? "" : layout.getFile().toString()).getBytes(StandardCharsets.UTF_8);
+        ByteBuffer header = ByteBuffer.allocate(16 + Short.BYTES + layoutFile.length + Long.BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(cols)
+                .putShort((short) layoutFile.length).put(layoutFile)
+                .putLong(layout == null ? 0 : layout.getRevision()).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        this.writer = new Thread(this::drain, "event-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // ============ RECORDING ============
+
+    public void spawn(String robotId, int x, int y, int targetX, int targetY, boolean isStatic, int rgb) {
+        Entry e = new Entry();
+        e.type = SPAWN;
+        e.a = robotId;
+        e.x = x;
+        e.y = y;
+        e.tx = targetX;
+        e.ty = targetY;
+        e.flag = isStatic ? 1 : 0;
+        e.rgb = rgb;
+        append(e);
+    }
+
+    public void occupy(String robotId, int x, int y) {
+        Entry e = new Entry();
+        e.type = OCCUPY;
+        e.a = robotId;
+        e.x = x;
+        e.y = y;
+        append(e);
+    }
+
+    public void free(int x, int y) {
+        Entry e = new Entry();
+        e.type = FREE;
+        e.x = x;
+        e.y = y;
+        append(e);
+    }
+
+    public void block(int x, int y, boolean blocked) {
+        Entry e = new Entry();
+        e.type = BLOCK;
+        e.x = x;
+        e.y = y;
+        e.flag = blocked ? 1 : 0;
+        append(e);
+    }
+
+    public void clearBlocks() {
+        Entry e = new Entry();
+        e.type = CLEAR_BLOCKS;
+        append(e);
+    }
+
+    public void message(byte type, String owner, int performative, String peers, String content,
+                        String conversationId) {
+        Entry e = new Entry();
+        e.type = type;
+        e.a = owner;
+        e.flag = performative;
+        e.b = peers;
+        e.c = content;
+        e.d = conversationId;
+        append(e);
+    }
+
+    private void append(Entry e) {
+        if (closed) {
+            return;
+        }
+        e.nanos = System.nanoTime() - startNanos;
+        synchronized (appendLock) {
+            e.seq = nextSeq++;
+            queue.add(e);
+        }
+    }
+
+    public long getRecordCount() {
+        synchronized (appendLock) {
+            return nextSeq;
+        }
+    }
+
+    // ============ WRITER ============
+
+    private void drain() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        List<Entry> batch = new ArrayList<>();
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+                boolean done = false;
+                for (Entry e : batch) {
+                    if (e == POISON) {
+                        done = true;
+                        break;
+                    }
+                    encode(e, buffer);
+                }
+                batch.clear();
+                flush(buffer);
+                if (done) {
+                    channel.force(false);
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+            closed = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void encode(Entry e, ByteBuffer buffer) throws IOException {
+        byte[] a = bytes(e.a), b = bytes(e.b), c = bytes(e.c), d = bytes(e.d);
+        int length = 8 + 8 + 1 + 6 * 4 + 4 * 2 + len(a) + len(b) + len(c) + len(d);
+        if (buffer.remaining() < length + 4) {
+            flush(buffer);
+            if (buffer.capacity() < length + 4) {
+                buffer = ByteBuffer.allocate(length + 4); // Oversized record, written on its own
+            }
+        }
+        buffer.putInt(length).putLong(e.seq).putLong(e.nanos).put(e.type);
+        buffer.putInt(e.x).putInt(e.y).putInt(e.flag).putInt(e.tx).putInt(e.ty).putInt(e.rgb);
+        putString(buffer, a);
+        putString(buffer, b);
+        putString(buffer, c);
+        putString(buffer, d);
+        if (!buffer.isDirect()) {
+            flush(buffer);
+        }
+    }
+
+    private void flush(ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static byte[] bytes(String s) {
+        if (s == null) {
+            return null;
+        }
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        return b.length > Short.MAX_VALUE ? java.util.Arrays.copyOf(b, Short.MAX_VALUE) : b;
+    }
+
+    private static int len(byte[] s) {
+        return s == null ? 0 : s.length;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] s) {
+        if (s == null) {
+            buffer.putShort((short) -1);
+        } else {
+            buffer.putShort((short) s.length);
+            buffer.put(s);
+        }
+    }
+
+    // Flushes everything queued so far and closes the file
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            queue.add(POISON);
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        channel.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Fleet-wide telemetry plus the JMX registration for the grid and each robot. Aggregates are
+// computed when a client reads them, so agents pay nothing beyond their volatile writes.
+public class FleetMonitor implements FleetMonitorMBean {
+    public static final String DOMAIN = "aldi.robots";
+    private static final FleetMonitor INSTANCE = new FleetMonitor();
+
+    private final Map<String, RobotAgent> robots = new ConcurrentHashMap<>();
+    private volatile Grid grid;
+
+    public static FleetMonitor getInstance() {
+        return INSTANCE;
+    }
+
+    // ============ REGISTRATION ============
+
+    public synchronized void registerGrid(Grid grid) {
+        this.grid = grid;
+        register(new GridMonitor(grid, this), "type=Grid");
+        register(this, "type=Fleet");
+    }
+
+    public void registerRobot(RobotAgent robot) {
+        robots.put(robot.getRobotId(), robot);
+        register(new RobotMonitor(robot), "type=Robot,name=" + ObjectName.quote(robot.getRobotId()));
+    }
+
+    public void unregisterRobot(RobotAgent robot) {
+        // A replacement agent with the same id may already have taken the slot
+        if (robots.remove(robot.getRobotId(), robot)) {
+            unregister("type=Robot,name=" + ObjectName.quote(robot.getRobotId()));
+        }
+    }
+
+    // Robots currently registered, for agents that need to address the whole fleet
+    public java.util.Collection<RobotAgent> getRobots() {
+        return java.util.Collections.unmodifiableCollection(robots.values());
+    }
+
+    private static void register(Object mbean, String properties) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(DOMAIN + ":" + properties);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(mbean, name);
+        } catch (JMException e) {
+            System.err.println("JMX registration failed for " + properties + ": " + e.getMessage());
+        }
+    }
+
+    private static void unregister(String properties) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(DOMAIN + ":" + properties);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            System.err.println("JMX unregistration failed for " + properties + ": " + e.getMessage());
+        }
+    }
+
+    // ============ ATTRIBUTES ============
+
+    @Override public int getRobotCount() { return robots.size(); }
+
+    @Override public int getMovingRobots() {
+        int count = 0;
+        for (RobotAgent robot : robots.values()) {
+            if (!robot.isStatic()) count++;
+        }
+        return count;
+    }
+
+    @Override public int getStaticRobots() {
+        return getRobotCount() - getMovingRobots();
+    }
+
+    @Override public int getRobotsAtTarget() {
+        int count = 0;
+        for (RobotAgent robot : robots.values()) {
+            if (!robot.isStatic() && robot.getCurrentX() == robot.getTargetX() &&
+                    robot.getCurrentY() == robot.getTargetY()) count++;
+        }
+        return count;
+    }
+
+    @Override public int getRobotsInDeadlock() {
+        int count = 0;
+        for (RobotAgent robot : robots.values()) {
+            if (robot.isInDeadlock()) count++;
+        }
+        return count;
+    }
+
+    @Override public int getDeferredRequests() {
+        int count = 0;
+        for (RobotAgent robot : robots.values()) {
+            count += robot.getDeferredRequestCount();
+        }
+        return count;
+    }
+
+    @Override public long getRequestsSent() { return metrics().requestsSent; }
+    @Override public long getRefusals() { return metrics().refusals; }
+    @Override public long getRetries() { return metrics().retries; }
+    @Override public long getDeadlockDetections() { return metrics().deadlockDetections; }
+    @Override public double getRequestToAgreeP50Millis() { return metrics().agreeP50Micros / 1000.0; }
+    @Override public double getRequestToAgreeP99Millis() { return metrics().agreeP99Micros / 1000.0; }
+
+    private SimulationMetrics.Snapshot metrics() {
+        Grid current = grid;
+        return current == null ? new SimulationMetrics().snapshot() : current.getMetrics().snapshot();
+    }
+}
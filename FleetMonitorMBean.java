@@ -0,0 +1,15 @@
+// JMX view aggregated over every live robot (see FleetMonitor)
+public interface FleetMonitorMBean {
+    int getRobotCount();
+    int getMovingRobots();
+    int getStaticRobots();
+    int getRobotsAtTarget();
+    int getRobotsInDeadlock();
+    int getDeferredRequests();
+    long getRequestsSent();
+    long getRefusals();
+    long getRetries();
+    long getDeadlockDetections();
+    double getRequestToAgreeP50Millis();
+    double getRequestToAgreeP99Millis();
+}
@@ -0,0 +1,85 @@
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Plans initial routes for a whole fleet in parallel before the agents are started.
+// All workers share one read-only GridSnapshot; each leaf task uses its own PathPlanner.
+public class FleetPlanner {
+    private static final int ROBOTS_PER_TASK = 16; // below this a task plans sequentially
+
+    public static class RouteRequest {
+        private final String robotId;
+        private final int startX, startY, targetX, targetY;
+
+        public RouteRequest(String robotId, int startX, int startY, int targetX, int targetY) {
+            this.robotId = robotId;
+            this.startX = startX;
+            this.startY = startY;
+            this.targetX = targetX;
+            this.targetY = targetY;
+        }
+
+        public String getRobotId() { return robotId; }
+    }
+
+    private final ForkJoinPool pool;
+
+    public FleetPlanner(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    // Robots whose target is unreachable get no entry; they plan lazily like before
+    public Map<String, int[]> planAll(GridSnapshot snapshot, PathPlanner.Mode mode, List<RouteRequest> requests) {
+        int[][] routes = new int[requests.size()][];
+        pool.invoke(new PlanTask(snapshot, mode, requests, routes, 0, requests.size()));
+
+        Map<String, int[]> result = new LinkedHashMap<>();
+        for (int i = 0; i < routes.length; i++) {
+            if (routes[i] != null) {
+                result.put(requests.get(i).getRobotId(), routes[i]);
+            }
+        }
+        return result;
+    }
+
+    private static class PlanTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final GridSnapshot snapshot;
+        private final PathPlanner.Mode mode;
+        private final List<RouteRequest> requests;
+        private final int[][] routes;
+        private final int from, to;
+
+        PlanTask(GridSnapshot snapshot, PathPlanner.Mode mode, List<RouteRequest> requests,
+                 int[][] routes, int from, int to) {
+            this.snapshot = snapshot;
+            this.mode = mode;
+            this.requests = requests;
+            this.routes = routes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= ROBOTS_PER_TASK) {
+                PathPlanner planner = new PathPlanner(snapshot);
+                for (int i = from; i < to; i++) {
+                    RouteRequest r = requests.get(i);
+                    routes[i] = planner.plan(mode, r.startX, r.startY, r.targetX, r.targetY).getPath();
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new PlanTask(snapshot, mode, requests, routes, from, mid),
+                    new PlanTask(snapshot, mode, requests, routes, mid, to));
+        }
+    }
+}
@@ -0,0 +1,180 @@
+import java.util.Arrays;
+
+// Direction field toward one target, shared by every robot heading there. Each cell stores the
+// neighbour to step to; the cost of passing through a cell grows while a robot occupies it, so
+// crowds spread over parallel aisles. Grid keeps the field current as cells are occupied and
+// freed, repairing only the cells whose route actually changes.
+public class FlowField {
+    public static final int DEFAULT_MAX_TARGETS = 32; // fields the grid keeps up to date at once
+    private static final int BASE_COST = 10;
+    private static final int CONGESTION_COST = 30; // extra cost of passing an occupied cell
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+    private static final int[] DX = {-1, 1, 0, 0};
+    private static final int[] DY = {0, 0, -1, 1};
+
+    private final Grid grid;
+    private final int rows;
+    private final int cols;
+    private final int target;
+    private final int[] dist; // cost to reach the target, including the cell itself
+    private final byte[] dir; // index into DX/DY of the next step, -1 for none
+    private int repairedCells; // cells settled by rebuilds and repairs, for statistics
+
+    public FlowField(Grid grid, int targetX, int targetY) {
+        this.grid = grid;
+        this.rows = grid.getRows();
+        this.cols = grid.getCols();
+        this.target = targetX * cols + targetY;
+        this.dist = new int[rows * cols];
+        this.dir = new byte[rows * cols];
+        rebuild();
+    }
+
+    // Returns {x, y} of the next cell, or null when at the target or cut off from it
+    public synchronized int[] nextCell(int x, int y) {
+        int cell = x * cols + y;
+        if (cell == target || dir[cell] < 0) {
+            return null;
+        }
+        return new int[]{x + DX[dir[cell]], y + DY[dir[cell]]};
+    }
+
+    public synchronized int getRepairedCells() {
+        return repairedCells;
+    }
+
+    // Full recompute, used when obstacles change
+    public synchronized void rebuild() {
+        Arrays.fill(dist, UNREACHABLE);
+        Arrays.fill(dir, (byte) -1);
+        if (isBlocked(target)) {
+            return;
+        }
+        dist[target] = 0;
+        PathPlanner.LongMinHeap queue = new PathPlanner.LongMinHeap(64);
+        queue.push(pack(0, target));
+        propagate(queue);
+    }
+
+    // Occupancy of a cell changed: recompute it and repair whatever routes through it
+    public synchronized void onCostChanged(int x, int y) {
+        int cell = x * cols + y;
+        if (cell == target || isBlocked(cell)) {
+            return;
+        }
+        int best = bestNeighbour(cell);
+        int newDist = best < 0 || dist[best] == UNREACHABLE ? UNREACHABLE : dist[best] + cost(cell);
+        PathPlanner.LongMinHeap queue = new PathPlanner.LongMinHeap(16);
+
+        if (newDist <= dist[cell]) {
+            // Cheaper (or unchanged): lower this cell and let the decrease spread outward
+            if (newDist < dist[cell]) {
+                dist[cell] = newDist;
+                dir[cell] = directionTo(cell, best);
+                queue.push(pack(newDist, cell));
+                propagate(queue);
+            }
+            return;
+        }
+
+        // More expensive: every cell whose arrows lead through here must be re-derived. The
+        // worklist walks that subtree from the changed cell and clears each cell as it is found;
+        // a cleared arrow also marks it, so nothing else proportional to the grid is needed.
+        int[] affected = new int[16];
+        int affectedCount = 0;
+        affected[affectedCount++] = cell;
+        dist[cell] = UNREACHABLE;
+        dir[cell] = -1;
+        for (int i = 0; i < affectedCount; i++) {
+            int current = affected[i];
+            int cx = current / cols, cy = current % cols;
+            for (int d = 0; d < 4; d++) {
+                int nx = cx + DX[d], ny = cy + DY[d];
+                if (nx < 0 || nx >= rows || ny < 0 || ny >= cols) continue;
+                int n = nx * cols + ny;
+                if (dir[n] >= 0 && n + DX[dir[n]] * cols + DY[dir[n]] == current) {
+                    if (affectedCount == affected.length) {
+                        affected = Arrays.copyOf(affected, affectedCount * 2);
+                    }
+                    affected[affectedCount++] = n;
+                    dist[n] = UNREACHABLE;
+                    dir[n] = -1;
+                }
+            }
+        }
+        repairedCells += affectedCount;
+
+        // Seed each affected cell from its settled neighbours, then relax as usual
+        for (int i = 0; i < affectedCount; i++) {
+            int c = affected[i];
+            int from = bestNeighbour(c);
+            if (from >= 0) {
+                dist[c] = dist[from] + cost(c);
+                dir[c] = directionTo(c, from);
+                queue.push(pack(dist[c], c));
+            }
+        }
+        propagate(queue);
+    }
+
+    // ============ HELPERS ============
+
+    private void propagate(PathPlanner.LongMinHeap queue) {
+        while (!queue.isEmpty()) {
+            long entry = queue.pop();
+            int cell = (int) entry;
+            int d = (int) (entry >>> 32);
+            if (d != dist[cell]) continue; // Stale entry
+            repairedCells++;
+            int x = cell / cols, y = cell % cols;
+            for (int k = 0; k < 4; k++) {
+                int nx = x + DX[k], ny = y + DY[k];
+                if (nx < 0 || nx >= rows || ny < 0 || ny >= cols) continue;
+                int n = nx * cols + ny;
+                if (n == target || isBlocked(n)) continue;
+                int candidate = d + cost(n);
+                if (candidate < dist[n]) {
+                    dist[n] = candidate;
+                    dir[n] = directionTo(n, cell);
+                    queue.push(pack(candidate, n));
+                }
+            }
+        }
+    }
+
+    // Cheapest reachable neighbour, -1 if none
+    private int bestNeighbour(int cell) {
+        int x = cell / cols, y = cell % cols;
+        int best = -1;
+        for (int d = 0; d < 4; d++) {
+            int nx = x + DX[d], ny = y + DY[d];
+            if (nx < 0 || nx >= rows || ny < 0 || ny >= cols) continue;
+            int n = nx * cols + ny;
+            if (dist[n] != UNREACHABLE && (best < 0 || dist[n] < dist[best])) {
+                best = n;
+            }
+        }
+        return best;
+    }
+
+    private byte directionTo(int from, int to) {
+        int dx = to / cols - from / cols;
+        int dy = to % cols - from % cols;
+        for (byte d = 0; d < 4; d++) {
+            if (DX[d] == dx && DY[d] == dy) return d;
+        }
+        return -1;
+    }
+
+    private int cost(int cell) {
+        return grid.getRobotAt(cell / cols, cell % cols) != null ? BASE_COST + CONGESTION_COST : BASE_COST;
+    }
+
+    private boolean isBlocked(int cell) {
+        return grid.isCellBlocked(cell / cols, cell % cols);
+    }
+
+    private static long pack(int distance, int cell) {
+        return ((long) distance << 32) | cell;
+    }
+}
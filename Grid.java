@@ -1,18 +1,94 @@
-import java.util.HashSet;// class for storing blocked cells using a hash table implementation
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;//Set interface that HashSet implements
 
+// Robots and obstacles are stored in the sparse chunks of the published GridSnapshot, so a
+// huge, mostly empty map costs memory only for the chunks that hold robots or obstacles
 public class Grid {
+    private static final int CHUNK = GridSnapshot.CHUNK;
+
     private int rows;
     private int cols;
-    private RobotAgent[][] cells;//2D array storing RobotAgent objects representing robots in cells
-    private Set<String> blockedCells; // New: tracks permanently blocked cells
-//tracking permanently blocked cells (e.g., obstacles) ,Uses strings like "2,3" as keys for blocked positions
+    private final int chunkRows;
+    private final int chunkCols;
+    private volatile int blockedCount = 0; // permanently blocked cells (obstacles)
+    private MappedObstacleMap layout; // mapped site layout under the edits, null if none or cleared
+    // Per-target direction fields, keyed by target cell index, least recently used first. Every
+    // move repairs each cached field, so only the most recent targets are kept; an evicted one
+    // is rebuilt if a robot heads there again.
+    private final int maxFlowFields = Integer.getInteger("flowField.maxTargets", FlowField.DEFAULT_MAX_TARGETS);
+    private final Map<Integer, FlowField> flowFields = new LinkedHashMap<Integer, FlowField>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, FlowField> eldest) {
+            return size() > maxFlowFields;
+        }
+    };
+    private volatile int obstacleEpoch = 0; // bumped on every obstacle change, keys the path cache
+    private final PathCache pathCache = new PathCache(Long.getLong("pathCache.maxBytes", PathCache.DEFAULT_MAX_BYTES));
+    private final SimulationMetrics metrics = new SimulationMetrics();
+    private final TrajectoryRecorder trajectories = new TrajectoryRecorder(
+            Integer.getInteger("trajectory.trailLength", TrajectoryRecorder.DEFAULT_TRAIL_LENGTH));
+    private volatile int occupiedCount = 0; // cells holding a robot, readable without the lock
+    // Congestion heatmap per chunk (chunk row * chunkCols + chunk col), allocated on first use
+    // and updated under the grid lock
+    private final Map<Integer, HeatChunk> heat = new HashMap<>();
+    private volatile int heatVersion = 0; // bumped on every heat change so viewers can skip redraws
+    private volatile EventJournal journal; // records every mutation when set, null otherwise
+    private final SimulationClock clock = new SimulationClock(); // time base for every agent interval
+    private final CellLeaseTable leases = new CellLeaseTable(
+            Long.getLong("lease.ttlMs", CellLeaseTable.DEFAULT_TTL_MS),
+            Long.getLong("lease.minWallTtlMs", CellLeaseTable.DEFAULT_MIN_WALL_TTL_MS), clock);
+    private volatile long planStart; // simulated time of tick 0 of the precomputed timed plans
+    private volatile SimulationCheckpoint pendingCheckpoint; // waiting for agents to add their state
+    private final Map<String, int[]> activeRoutes = new java.util.concurrent.ConcurrentHashMap<>(); // robot -> cells ahead
+    private final Set<Integer> claimedRegionTokens = java.util.concurrent.ConcurrentHashMap.newKeySet();
+    private final Map<String, RobotAgent> tokenPeers = new java.util.concurrent.ConcurrentHashMap<>(); // robot id -> agent
+    // Lock-free readers get the latest published version; writers stage their change under the
+    // grid lock, copying each touched chunk once, and publish it in one volatile write
+    private volatile GridSnapshot current;
+    private long version = 0;
+    private RobotAgent[][][] draftOccupants; // next version's tables while a change is staged
+    private long[][][] draftObstacles;
+    private boolean[] occupantRowsCopied; // chunk rows and chunks already copied for the staged change
+    private boolean[] obstacleRowsCopied;
+    private final Set<Integer> occupantChunksCopied = new HashSet<>();
+    private final Set<Integer> obstacleChunksCopied = new HashSet<>();
+    private final Map<Integer, Integer> robotsPerChunk = new HashMap<>(); // populated chunks only
+
+    private static class HeatChunk {
+        final long[] occupiedSince = new long[GridSnapshot.CHUNK_CELLS]; // nanoTime the occupant arrived, 0 when free
+        final long[] occupancyNanos = new long[GridSnapshot.CHUNK_CELLS]; // accumulated time of past occupants
+        final int[] refusals = new int[GridSnapshot.CHUNK_CELLS]; // REFUSE replies for requests targeting the cell
+    }
+
     //constructor
     public Grid(int rows, int cols) {
+        this(rows, cols, null);
+    }
+
+    // Grid over a site layout mapped from disk; obstacle edits are kept on top of it in memory
+    // and never written back to the shared file
+    public Grid(MappedObstacleMap layout) {
+        this(layout.getRows(), layout.getCols(), layout);
+    }
+
+    // Cells are indexed x * cols + y in an int throughout (flow fields, leases, path cache,
+    // checkpoints), so a grid holds at most Integer.MAX_VALUE cells
+    private Grid(int rows, int cols, MappedObstacleMap layout) {
+        if ((long) rows * cols > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Grid of " + rows + "x" + cols + " has more than " +
+                    Integer.MAX_VALUE + " cells");
+        }
         this.rows = rows;
         this.cols = cols;
-        this.cells = new RobotAgent[rows][cols];
-        this.blockedCells = new HashSet<>();
+        this.chunkRows = (rows + CHUNK - 1) / CHUNK;
+        this.chunkCols = (cols + CHUNK - 1) / CHUNK;
+        this.layout = layout;
+        this.blockedCount = layout == null ? 0 : (int) layout.getBlockedCount(); // Checked against rows * cols on open
+        this.current = GridSnapshot.empty(rows, cols, layout, pathCache);
     }
 //Cell Availability Check
     public boolean isCellFree(int x, int y) {
@@ -20,11 +96,42 @@ public class Grid {
             return false;//Return false if coordinates are outside grid boundaries
         }
         // Cell is NOT free if: occupied by robot OR marked as blocked
-        return cells[x][y] == null && !isCellBlocked(x, y);
+        return current.isCellFree(x, y);
         //Cell is free only if No robot present and Cell is not blocked
     }
 //Cell Occupation Method:Synchronized: Thread-safe method for multi-agent coordination
     public synchronized boolean occupyCell(int x, int y, RobotAgent robot) {
+        if (!occupyStaged(x, y, robot)) {
+            return false;
+        }
+        publish();
+        updateFlowFields(x, y);
+        return true;
+    }
+
+    public synchronized void freeCell(int x, int y) {
+        if (freeStaged(x, y)) {
+            publish();
+            updateFlowFields(x, y);
+        }
+    }
+
+    // Leaves one cell and enters another as a single published change, so no reader ever sees
+    // the robot in both cells or in neither. False, with nothing changed, if the target is taken.
+    public synchronized boolean moveRobot(int fromX, int fromY, int toX, int toY, RobotAgent robot) {
+        if (!isCellFree(toX, toY)) {
+            metrics.recordCollisionPrevented();
+            return false;
+        }
+        freeStaged(fromX, fromY);
+        occupyStaged(toX, toY, robot);
+        publish();
+        updateFlowFields(fromX, fromY);
+        updateFlowFields(toX, toY);
+        return true;
+    }
+
+    private boolean occupyStaged(int x, int y, RobotAgent robot) {
         if (x < 0 || x >= rows || y < 0 || y >= cols) {
             return false; // Out of bounds
         }
@@ -32,31 +139,81 @@ public class Grid {
         // Check if cell is blocked
         if (isCellBlocked(x, y)) {
             System.err.println("ERROR: Attempt to occupy BLOCKED cell (" + x + "," + y + ")");
+            metrics.recordCollisionPrevented();
             return false;
         }
 // Prevent occupation of blocked cells with error message
-        if (cells[x][y] != null) {
+        if (occupant(x, y) != null) {
             System.err.println("WARNING: Attempt to occupy occupied cell (" + x + "," + y + ")");
-            System.err.println("Current occupant: " + cells[x][y].getRobotId());
+            System.err.println("Current occupant: " + occupant(x, y).getRobotId());
             System.err.println("New occupant: " + robot.getRobotId());
+            metrics.recordCollisionPrevented();
             return false;
         }
 
-        cells[x][y] = robot;
+        setCell(x, y, robot);
+        occupiedCount++;
+        heatChunk(x, y).occupiedSince[offset(x, y)] = System.nanoTime();
+        heatVersion++;
+        leases.acquire(x * cols + y, robot.getRobotId());
+        if (journal != null) {
+            journal.occupy(robot.getRobotId(), x, y);
+        }
         return true;
     }
 
-    public synchronized void freeCell(int x, int y) {
-        if (x >= 0 && x < rows && y >= 0 && y < cols) {
-            cells[x][y] = null;
+    private boolean freeStaged(int x, int y) {
+        if (x < 0 || x >= rows || y < 0 || y >= cols || occupant(x, y) == null) {
+            return false;
         }
+        leases.release(x * cols + y, occupant(x, y).getRobotId());
+        setCell(x, y, null);
+        occupiedCount--;
+        HeatChunk chunk = heatChunk(x, y);
+        int offset = offset(x, y);
+        chunk.occupancyNanos[offset] += System.nanoTime() - chunk.occupiedSince[offset];
+        chunk.occupiedSince[offset] = 0;
+        heatVersion++;
+        if (journal != null) {
+            journal.free(x, y);
+        }
+        return true;
     }
-//Returns robot at given coordinates or null if out of bounds
+
+    // A migrated agent arrives as a new object; point its cell at the new instance
+    public synchronized boolean rebindRobot(int x, int y, RobotAgent robot) {
+        if (x < 0 || x >= rows || y < 0 || y >= cols || occupant(x, y) == null ||
+                !occupant(x, y).getRobotId().equals(robot.getRobotId())) {
+            return false;
+        }
+        setCell(x, y, robot);
+        publish();
+        return true;
+    }
+
+//Returns robot at given coordinates or null if out of bounds; lock-free, from the latest snapshot
     public RobotAgent getRobotAt(int x, int y) {
-        if (x >= 0 && x < rows && y >= 0 && y < cols) {
-            return cells[x][y];
+        return current.getRobotAt(x, y);
+    }
+
+    // Leases the leading run of cells (indices x * cols + y) that are open to the robot, in one
+    // step under the grid lock, and returns how many it got. The leases are released cell by
+    // cell as the robot moves on, since freeCell passes on the lease of the cell it leaves.
+    public synchronized int reserveSegment(int[] segment, RobotAgent robot) {
+        int reserved = 0;
+        for (int cell : segment) {
+            int x = cell / cols, y = cell % cols;
+            if (isCellBlocked(x, y) || (occupant(x, y) != null && occupant(x, y) != robot) ||
+                    leases.isLeasedToOther(cell, robot.getRobotId())) {
+                break;
+            }
+            leases.acquire(cell, robot.getRobotId());
+            reserved++;
+        }
+        if (reserved > 0) {
+            metrics.recordSegment(reserved);
         }
-        return null;
+        return reserved;
     }
 
     // ============ BLOCKED CELLS MANAGEMENT ============
@@ -66,18 +223,21 @@ public class Grid {
             return false;
         }
 
-        String cellKey = x + "," + y;
-        if (blockedCells.contains(cellKey)) {
+        if (blockedNow(x, y)) {
             // Unblock cell (only if not occupied)
-            if (cells[x][y] == null) {
-                blockedCells.remove(cellKey);
+            if (occupant(x, y) == null) {
+                setBlocked(x, y, false);
+                obstaclesChanged();
+                journalBlock(x, y, false);
                 return true;
             }
             return false;
         } else {
             // Block cell (only if not occupied)
-            if (cells[x][y] == null) {
-                blockedCells.add(cellKey);
+            if (occupant(x, y) == null) {
+                setBlocked(x, y, true);
+                obstaclesChanged();
+                journalBlock(x, y, true);
                 return true;
             }
             return false;
@@ -89,38 +249,390 @@ public class Grid {
             return false;
         }
 
-        String cellKey = x + "," + y;
         if (blocked) {
             // Block cell (only if not occupied)
-            if (cells[x][y] == null) {
-                blockedCells.add(cellKey);
+            if (occupant(x, y) == null) {
+                if (setBlocked(x, y, true)) {
+                    obstaclesChanged();
+                    journalBlock(x, y, true);
+                }
                 return true;
             }
             return false;
         } else {
             // Unblock cell
-            blockedCells.remove(cellKey);
+            if (setBlocked(x, y, false)) {
+                obstaclesChanged();
+                journalBlock(x, y, false);
+            }
             return true;
         }
     }
 
+    // Undoes every obstacle edit, back to the base layout (to no obstacles without one)
+    public synchronized void resetObstacleEdits() {
+        GridSnapshot view = current;
+        if (journal != null) {
+            view.forEachEdit(cell -> journal.block(cell / cols, cell % cols, layout != null &&
+                    layout.isBlocked(cell / cols, cell % cols)));
+        }
+        draftObstacles = GridSnapshot.freeObstacles(chunkRows, chunkCols);
+        obstacleRowsCopied = new boolean[chunkRows];
+        Arrays.fill(obstacleRowsCopied, true); // Fresh rows, sentinel chunks
+        obstacleChunksCopied.clear();
+        blockedCount = layout == null ? 0 : (int) layout.getBlockedCount();
+        obstaclesChanged();
+    }
+
     public synchronized void clearAllBlockedCells() {
-        blockedCells.clear();
+        layout = null; // Drop the base layout too: nothing is blocked afterwards
+        draftObstacles = GridSnapshot.freeObstacles(chunkRows, chunkCols);
+        obstacleRowsCopied = new boolean[chunkRows];
+        Arrays.fill(obstacleRowsCopied, true); // Fresh rows, sentinel chunks
+        obstacleChunksCopied.clear();
+        blockedCount = 0;
+        obstaclesChanged();
+        if (journal != null) {
+            journal.clearBlocks();
+        }
     }
 
-    public boolean isCellBlocked(int x, int y) {
-        if (x < 0 || x >= rows || y < 0 || y >= cols) {
-            return true; // Out of bounds counts as blocked
+    // Publishes the new layout before the flow fields, which read it back, are rebuilt
+    private void obstaclesChanged() {
+        obstacleEpoch++;
+        publish();
+        rebuildFlowFields();
+    }
+
+    private void journalBlock(int x, int y, boolean blocked) {
+        if (journal != null) {
+            journal.block(x, y, blocked);
+        }
+    }
+
+    // ============ CHECKPOINTS ============
+
+    // Hands the current snapshot to a new checkpoint and asks every agent to add its own state;
+    // each agent records its position with it, so occupancy is not copied here. The snapshot is
+    // immutable, so the checkpoint reads its obstacle edits later, outside the lock.
+    public synchronized SimulationCheckpoint beginCheckpoint(int expectedRobots) {
+        // Up to date: every change publishes before releasing the lock
+        pendingCheckpoint = new SimulationCheckpoint(current, expectedRobots);
+        return pendingCheckpoint;
+    }
+
+    public SimulationCheckpoint getPendingCheckpoint() {
+        return pendingCheckpoint;
+    }
+
+    public synchronized void endCheckpoint(SimulationCheckpoint checkpoint) {
+        if (pendingCheckpoint == checkpoint) {
+            pendingCheckpoint = null;
+        }
+    }
+
+    // ============ ACTIVE ROUTES ============
+
+    // Moving robots publish the cells they still intend to cross, so parking robots keep clear
+    public void publishRoute(String robotId, int[] cells) {
+        activeRoutes.put(robotId, cells);
+    }
+
+    public void clearRoute(String robotId) {
+        activeRoutes.remove(robotId);
+    }
+
+    // Cells (x * cols + y) on any published route except the given robot's; sized by the
+    // routes, not the grid
+    public Set<Integer> activeRouteCells(String exceptRobotId) {
+        Set<Integer> onRoute = new HashSet<>();
+        for (Map.Entry<String, int[]> e : activeRoutes.entrySet()) {
+            if (!e.getKey().equals(exceptRobotId)) {
+                for (int cell : e.getValue()) {
+                    onRoute.add(cell);
+                }
+            }
         }
-        return blockedCells.contains(x + "," + y);
+        return onRoute;
     }
 
+    // ============ REGION TOKENS ============
+
+    // Each region's Suzuki-Kasami token is created once, by the first robot to ask for it;
+    // everyone after that has to get it from its current holder
+    public boolean claimRegionToken(int region) {
+        return claimedRegionTokens.add(region);
+    }
+
+    public void returnRegionToken(int region) {
+        claimedRegionTokens.remove(region);
+    }
+
+    // New run: tokens held by the previous fleet are gone with it
+    public void resetRegionTokens() {
+        claimedRegionTokens.clear();
+        tokenPeers.clear();
+    }
+
+    // Directory of the robots taking part in the token protocol, the receivers of every token
+    // request. A robot leaves it only as the agent that joined, so a finished run's takedown
+    // cannot drop a new robot of the same name.
+    public void joinTokenPeers(RobotAgent robot) {
+        tokenPeers.put(robot.getRobotId(), robot);
+    }
+
+    public void leaveTokenPeers(RobotAgent robot) {
+        tokenPeers.remove(robot.getRobotId(), robot);
+    }
+
+    public Set<String> getTokenPeers() {
+        return tokenPeers.keySet();
+    }
+
+    // ============ EVENT JOURNAL ============
+
+    // Starts recording into the journal, first writing the obstacle edits and the occupants so
+    // a replay onto the bare layout the journal names reaches the same state. This happens under
+    // the lock, ahead of any later change, but visits only edited chunks and chunks with robots,
+    // never the mapped layout itself. Pass null to stop recording.
+    public synchronized void setJournal(EventJournal journal) {
+        this.journal = journal;
+        if (journal == null) {
+            return;
+        }
+        GridSnapshot view = current;
+        view.forEachEdit(cell -> journal.block(cell / cols, cell % cols,
+                view.isCellBlocked(cell / cols, cell % cols)));
+        view.forEachRobot((x, y, robot) -> journal.occupy(robot.getRobotId(), x, y));
+    }
+
+    public EventJournal getJournal() {
+        return journal;
+    }
+
+    public boolean isCellBlocked(int x, int y) {
+        return current.isCellBlocked(x, y); // Out of bounds counts as blocked
+    }
+
+    // Mapped site layout under the obstacle edits, null if none or cleared
+    public MappedObstacleMap getLayout() {
+        return layout;
+    }
+
+    // Whether state recorded over the given layout (file "" for none) applies to this grid:
+    // the same file at the same revision
+    public boolean hasLayout(String file, long revision) {
+        MappedObstacleMap base = layout;
+        return base == null ? file.isEmpty() : base.getFile().toString().equals(file) && base.getRevision() == revision;
+    }
+
+    // "x,y" keys of every blocked cell
     public Set<String> getBlockedCells() {
-        return new HashSet<>(blockedCells);
+        Set<String> keys = new HashSet<>();
+        current.forEachBlocked(cell -> keys.add(cell / cols + "," + cell % cols));
+        return keys;
     }
 
     public int getBlockedCellCount() {
-        return blockedCells.size();
+        return blockedCount;
+    }
+
+    public int getOccupiedCellCount() {
+        return occupiedCount;
+    }
+
+    public int getObstacleEpoch() {
+        return obstacleEpoch;
+    }
+
+    public PathCache getPathCache() {
+        return pathCache;
+    }
+
+    public SimulationMetrics getMetrics() {
+        return metrics;
+    }
+
+    public SimulationClock getClock() {
+        return clock;
+    }
+
+    public CellLeaseTable getLeases() {
+        return leases;
+    }
+
+    public TrajectoryRecorder getTrajectories() {
+        return trajectories;
+    }
+
+    // ============ CONGESTION HEATMAP ============
+
+    public synchronized void recordRefusal(int x, int y) {
+        if (x >= 0 && x < rows && y >= 0 && y < cols) {
+            heatChunk(x, y).refusals[offset(x, y)]++;
+            heatVersion++;
+        }
+    }
+
+    // Copies one chunk's occupied time per cell (including a current occupant up to now) and
+    // refusal counts into arrays indexed (x % CHUNK) * CHUNK + y % CHUNK. Returns false for a
+    // chunk never visited, leaving the arrays alone. Viewers copy chunk by chunk, so the lock is
+    // never held for a pass over the whole grid.
+    public synchronized boolean copyHeat(int chunkRow, int chunkCol, long[] occupancyOut, int[] refusalsOut) {
+        HeatChunk chunk = heat.get(chunkRow * chunkCols + chunkCol);
+        if (chunk == null) {
+            return false;
+        }
+        long now = System.nanoTime();
+        for (int i = 0; i < GridSnapshot.CHUNK_CELLS; i++) {
+            long since = chunk.occupiedSince[i];
+            occupancyOut[i] = chunk.occupancyNanos[i] + (since != 0 ? now - since : 0);
+            refusalsOut[i] = chunk.refusals[i];
+        }
+        return true;
+    }
+
+    public synchronized void resetHeat() {
+        long now = System.nanoTime();
+        for (HeatChunk chunk : heat.values()) {
+            Arrays.fill(chunk.occupancyNanos, 0);
+            Arrays.fill(chunk.refusals, 0);
+            for (int i = 0; i < GridSnapshot.CHUNK_CELLS; i++) {
+                if (chunk.occupiedSince[i] != 0) {
+                    chunk.occupiedSince[i] = now;
+                }
+            }
+        }
+        heatVersion++;
+    }
+
+    private HeatChunk heatChunk(int x, int y) {
+        return heat.computeIfAbsent((x / CHUNK) * chunkCols + y / CHUNK, k -> new HeatChunk());
+    }
+
+    public int getHeatVersion() {
+        return heatVersion;
+    }
+
+    // Latest published version of obstacles and occupants; never blocks, never waits for a move
+    public GridSnapshot snapshot() {
+        return current;
+    }
+
+    // ============ SNAPSHOT PUBLICATION ============
+
+    // Occupant and obstacle state including the staged change, for writers holding the lock
+    private RobotAgent occupant(int x, int y) {
+        RobotAgent[][][] table = draftOccupants != null ? draftOccupants : current.occupantTable();
+        return table[x / CHUNK][y / CHUNK][offset(x, y)];
+    }
+
+    private boolean blockedNow(int x, int y) {
+        long[][][] table = draftObstacles != null ? draftObstacles : current.obstacleTable();
+        boolean edited = (table[x / CHUNK][y / CHUNK][x % CHUNK] & (1L << (y % CHUNK))) != 0;
+        return layout != null && layout.isBlocked(x, y) ? !edited : edited;
+    }
+
+    private static int offset(int x, int y) {
+        return (x % CHUNK) * CHUNK + y % CHUNK;
+    }
+
+    // Stages one occupant change for the next version. A chunk whose last robot leaves goes
+    // back to the shared empty sentinel.
+    private void setCell(int x, int y, RobotAgent robot) {
+        int cr = x / CHUNK, cc = y / CHUNK, key = cr * chunkCols + cc;
+        if (draftOccupants == null) {
+            draftOccupants = current.occupantTable().clone();
+            occupantRowsCopied = new boolean[chunkRows];
+            occupantChunksCopied.clear();
+        }
+        if (!occupantRowsCopied[cr]) {
+            draftOccupants[cr] = draftOccupants[cr].clone();
+            occupantRowsCopied[cr] = true;
+        }
+        if (occupantChunksCopied.add(key)) {
+            draftOccupants[cr][cc] = draftOccupants[cr][cc].clone();
+        }
+        RobotAgent[] chunk = draftOccupants[cr][cc];
+        int offset = offset(x, y);
+        int delta = (robot != null ? 1 : 0) - (chunk[offset] != null ? 1 : 0);
+        chunk[offset] = robot;
+        if (robotsPerChunk.merge(key, delta, Integer::sum) == 0) {
+            robotsPerChunk.remove(key);
+            draftOccupants[cr][cc] = GridSnapshot.NO_ROBOTS;
+            occupantChunksCopied.remove(key);
+        }
+    }
+
+    // Stages one obstacle change; false if the cell already was that way. The chunk bit flips
+    // either way, as it records the difference from the base layout if there is one. Chunks
+    // that end up all free or all blocked are replaced by the shared sentinel.
+    private boolean setBlocked(int x, int y, boolean blocked) {
+        if (blockedNow(x, y) == blocked) {
+            return false;
+        }
+        int cr = x / CHUNK, cc = y / CHUNK, key = cr * chunkCols + cc;
+        if (draftObstacles == null) {
+            draftObstacles = current.obstacleTable().clone();
+            obstacleRowsCopied = new boolean[chunkRows];
+            obstacleChunksCopied.clear();
+        }
+        if (!obstacleRowsCopied[cr]) {
+            draftObstacles[cr] = draftObstacles[cr].clone();
+            obstacleRowsCopied[cr] = true;
+        }
+        if (obstacleChunksCopied.add(key)) {
+            draftObstacles[cr][cc] = draftObstacles[cr][cc].clone();
+        }
+        long[] chunk = draftObstacles[cr][cc];
+        chunk[x % CHUNK] ^= 1L << (y % CHUNK);
+        blockedCount += blocked ? 1 : -1;
+        if (Arrays.equals(chunk, GridSnapshot.ALL_FREE) || Arrays.equals(chunk, GridSnapshot.ALL_BLOCKED)) {
+            draftObstacles[cr][cc] = chunk[0] == 0 ? GridSnapshot.ALL_FREE : GridSnapshot.ALL_BLOCKED;
+            obstacleChunksCopied.remove(key);
+        }
+        return true;
+    }
+
+    // Makes everything staged visible to readers at once (caller holds the lock)
+    private void publish() {
+        GridSnapshot base = current;
+        current = new GridSnapshot(rows, cols,
+                draftOccupants != null ? draftOccupants : base.occupantTable(),
+                draftObstacles != null ? draftObstacles : base.obstacleTable(),
+                layout, obstacleEpoch, pathCache, ++version);
+        draftOccupants = null;
+        draftObstacles = null;
+    }
+
+    // ============ FLOW FIELDS ============
+
+    // Field is computed once per target and then shared by every robot heading there
+    public synchronized FlowField getFlowField(int targetX, int targetY) {
+        return flowFields.computeIfAbsent(targetX * cols + targetY, k -> new FlowField(this, targetX, targetY));
+    }
+
+    private void updateFlowFields(int x, int y) {
+        for (FlowField field : flowFields.values()) {
+            field.onCostChanged(x, y);
+        }
+    }
+
+    private void rebuildFlowFields() {
+        for (FlowField field : flowFields.values()) {
+            field.rebuild();
+        }
+    }
+
+    // ============ TIMED PLANS ============
+
+    // Starts the shared tick that every robot following a precomputed timed plan steps on
+    public void startPlanClock() {
+        planStart = clock.now();
+    }
+
+    public long getPlanStart() {
+        return planStart;
     }
 
     // ============ GETTERS ============
@@ -128,13 +640,15 @@ public class Grid {
     public int getRows() { return rows; }
     public int getCols() { return cols; }
 
-    public synchronized void printGridState() {
+    public void printGridState() {
+        GridSnapshot view = current;
         System.out.println("=== Current Grid State ===");
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < cols; j++) {
-                if (cells[i][j] != null) {
-                    System.out.print(cells[i][j].getRobotId().charAt(5) + " ");
-                } else if (isCellBlocked(i, j)) {
+                RobotAgent robot = view.getRobotAt(i, j);
+                if (robot != null) {
+                    System.out.print(robot.getRobotId().charAt(5) + " ");
+                } else if (view.isCellBlocked(i, j)) {
                     System.out.print("# "); // # for blocked cell
                 } else {
                     System.out.print(". ");
@@ -143,6 +657,6 @@ public class Grid {
             System.out.println();
         }
         System.out.println("=========================");
-        System.out.println("Blocked cells: " + blockedCells.size());
+        System.out.println("Blocked cells: " + blockedCount);
     }
 }
\ No newline at end of file
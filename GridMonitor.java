@@ -0,0 +1,65 @@
+import java.lang.management.LockInfo;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+
+// Grid telemetry for JConsole and other JMX clients. Every attribute is read from volatile
+// fields, the lock-free metrics or the thread MXBean, so polling never takes the grid lock
+// agents move under.
+public class GridMonitor implements GridMonitorMBean {
+    private final Grid grid;
+    private final FleetMonitor fleet;
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private long lastMoves;
+    private long lastSampleNanos = System.nanoTime();
+    private double movesPerSecond;
+
+    public GridMonitor(Grid grid, FleetMonitor fleet) {
+        this.grid = grid;
+        this.fleet = fleet;
+    }
+
+    @Override public int getRows() { return grid.getRows(); }
+    @Override public int getCols() { return grid.getCols(); }
+    @Override public int getOccupiedCells() { return grid.getOccupiedCellCount(); }
+    @Override public int getBlockedCells() { return grid.getBlockedCellCount(); }
+    @Override public int getObstacleEpoch() { return grid.getObstacleEpoch(); }
+    @Override public long getTotalMoves() { return grid.getMetrics().snapshot().moves; }
+    @Override public long getRejectedOccupies() { return grid.getMetrics().snapshot().collisionsPrevented; }
+    @Override public int getDeferredRequests() { return fleet.getDeferredRequests(); }
+
+    // Occupy attempts the grid turned away plus requests robots are holding back
+    @Override public long getRejectedOrDeferredRequests() {
+        return getRejectedOccupies() + getDeferredRequests();
+    }
+
+    // Lock contention proper: threads blocked on the grid's monitor at the moment of the read
+    @Override public int getGridLockWaiters() {
+        int gridLock = System.identityHashCode(grid);
+        int waiters = 0;
+        for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds())) {
+            if (info == null || info.getThreadState() != Thread.State.BLOCKED) {
+                continue;
+            }
+            LockInfo lock = info.getLockInfo();
+            if (lock != null && lock.getIdentityHashCode() == gridLock
+                    && lock.getClassName().equals(Grid.class.getName())) {
+                waiters++;
+            }
+        }
+        return waiters;
+    }
+
+    // Rate since the previous read; a scraper polling every few seconds gets a smoothed figure
+    @Override public synchronized double getMovesPerSecond() {
+        long now = System.nanoTime();
+        long moves = getTotalMoves();
+        long elapsed = now - lastSampleNanos;
+        if (elapsed >= 1_000_000_000L || moves < lastMoves) {
+            movesPerSecond = moves < lastMoves ? 0 : (moves - lastMoves) * 1e9 / elapsed;
+            lastMoves = moves;
+            lastSampleNanos = now;
+        }
+        return movesPerSecond;
+    }
+}
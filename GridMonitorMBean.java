@@ -0,0 +1,14 @@
+// JMX view of the shared grid (see GridMonitor)
+public interface GridMonitorMBean {
+    int getRows();
+    int getCols();
+    int getOccupiedCells();
+    int getBlockedCells();
+    int getObstacleEpoch();
+    long getTotalMoves();
+    double getMovesPerSecond();
+    long getRejectedOccupies();
+    int getDeferredRequests();
+    long getRejectedOrDeferredRequests();
+    int getGridLockWaiters();
+}
@@ -3,7 +3,11 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.Rectangle2D;
-import java.util.Set;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 public class GridPanel extends JPanel {
     private Grid grid;
@@ -21,6 +25,31 @@ public class GridPanel extends JPanel {
     private boolean blockEditMode = false;
     private boolean eraseMode = false; // true = erase blocks, false = add blocks
 
+    // Trail overlay: segments are appended to a cached image as robots move; the image is only
+    // redrawn from the rings once a trail has lost more than half its length to eviction
+    private boolean showTrails = false;
+    private BufferedImage trailLayer;
+    private int trailGeneration = -1;
+    private final Map<String, Long> trailDrawnTo = new HashMap<>(); // entries already painted
+    private final Map<String, Long> trailDrawnFrom = new HashMap<>(); // oldest entry still painted
+    private static final BasicStroke TRAIL_STROKE =
+            new BasicStroke(3, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+
+    // Congestion heatmap: one pixel per visible cell, written straight into the raster on a timer
+    // and scaled up when painted. Occupied time and refusals each map onto the same colour ramp,
+    // relative to the hottest visible cell.
+    private boolean showHeatmap = false;
+    private BufferedImage heatLayer;
+    private Rectangle heatArea; // cells under heatLayer: x, y = first column, row
+    private long[] heatOccupancy;
+    private int[] heatRefusals;
+    private final long[] chunkOccupancy = new long[GridSnapshot.CHUNK_CELLS];
+    private final int[] chunkRefusals = new int[GridSnapshot.CHUNK_CELLS];
+    private int heatVersionDrawn = -1;
+    private final Timer heatTimer;
+    private static final int HEATMAP_REFRESH_MS = 500;
+    private static final int HEATMAP_ALPHA = 150;
+
     public GridPanel(Grid grid) {
         this.grid = grid;
         setPreferredSize(new Dimension(
@@ -29,6 +58,11 @@ public class GridPanel extends JPanel {
         ));
         setBackground(new Color(250, 250, 250));
         setBorder(BorderFactory.createLineBorder(new Color(200, 200, 200), 2));
+        heatTimer = new Timer(HEATMAP_REFRESH_MS, e -> {
+            if (updateHeatLayer()) {
+                repaint();
+            }
+        });
     }
     public void setBlockEditMode(boolean enabled, boolean erase) {
         this.blockEditMode = enabled;
@@ -87,19 +121,61 @@ public class GridPanel extends JPanel {
         return cellSize;
     }
 
+    public void setShowTrails(boolean show) {
+        this.showTrails = show;
+        if (!show) {
+            trailLayer = null; // Free the image; it is rebuilt from the rings when shown again
+        }
+        repaint();
+    }
+
+    public boolean isShowTrails() {
+        return showTrails;
+    }
+
+    public void setShowHeatmap(boolean show) {
+        this.showHeatmap = show;
+        if (show) {
+            heatVersionDrawn = -1;
+            updateHeatLayer();
+            heatTimer.start();
+        } else {
+            heatTimer.stop();
+            heatLayer = null;
+        }
+        repaint();
+    }
+
+    public boolean isShowHeatmap() {
+        return showHeatmap;
+    }
+
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
+        GridSnapshot view = grid.snapshot(); // one consistent version for the whole frame
         Graphics2D g2d = (Graphics2D) g;
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
                 RenderingHints.VALUE_ANTIALIAS_ON);
-        drawGridBackground(g2d);
+        drawGridBackground(g2d, view);
         drawGridLines(g2d);
-        drawCellCoordinates(g2d);
+        if (showHeatmap && !visibleCells().equals(heatArea)) {
+            updateHeatLayer(); // Scrolled or resized since the last refresh
+        }
+        if (showHeatmap && heatLayer != null) {
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                    RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+            g2d.drawImage(heatLayer, heatArea.x * cellSize, heatArea.y * cellSize,
+                    heatArea.width * cellSize, heatArea.height * cellSize, null);
+        }
+        drawCellCoordinates(g2d, view);
+        if (showTrails) {
+            drawTrails(g2d);
+        }
         if (showSetup) {
             drawSetupPositions(g2d);
         }
-        drawRobots(g2d);
+        drawRobots(g2d, view);
         drawLegend(g2d);
         drawTitle(g2d);
         if (blockEditMode) {
@@ -107,13 +183,11 @@ public class GridPanel extends JPanel {
         }
     }
 
-    private void drawGridBackground(Graphics2D g2d) {
-        Set<String> blockedCells = grid.getBlockedCells();
-
-        for (int i = 0; i < grid.getRows(); i++) {
-            for (int j = 0; j < grid.getCols(); j++) {
-                String cellKey = i + "," + j;
-                boolean isBlocked = blockedCells.contains(cellKey);
+    private void drawGridBackground(Graphics2D g2d, GridSnapshot view) {
+        Rectangle cells = cellsIn(g2d.getClipBounds()); // A site layout can be far larger than the view
+        for (int i = cells.y; i < cells.y + cells.height; i++) {
+            for (int j = cells.x; j < cells.x + cells.width; j++) {
+                boolean isBlocked = view.isCellBlocked(i, j);
 
                 Color bgColor;
                 if (isBlocked) {
@@ -153,24 +227,24 @@ public class GridPanel extends JPanel {
     }
 
     private void drawGridLines(Graphics2D g2d) {
+        Rectangle cells = cellsIn(g2d.getClipBounds());
         g2d.setColor(new Color(220, 220, 220));
         g2d.setStroke(new BasicStroke(1.5f));
-        for (int j = 0; j <= grid.getCols(); j++) {
+        for (int j = cells.x; j <= cells.x + cells.width; j++) {
             g2d.drawLine(j * cellSize, 0, j * cellSize, grid.getRows() * cellSize);
         }
-        for (int i = 0; i <= grid.getRows(); i++) {
+        for (int i = cells.y; i <= cells.y + cells.height; i++) {
             g2d.drawLine(0, i * cellSize, grid.getCols() * cellSize, i * cellSize);
         }
     }
 
-    private void drawCellCoordinates(Graphics2D g2d) {
+    private void drawCellCoordinates(Graphics2D g2d, GridSnapshot view) {
         g2d.setFont(coordFont);
-        Set<String> blockedCells = grid.getBlockedCells();
 
-        for (int i = 0; i < grid.getRows(); i++) {
-            for (int j = 0; j < grid.getCols(); j++) {
-                String cellKey = i + "," + j;
-                boolean isBlocked = blockedCells.contains(cellKey);
+        Rectangle cells = cellsIn(g2d.getClipBounds());
+        for (int i = cells.y; i < cells.y + cells.height; i++) {
+            for (int j = cells.x; j < cells.x + cells.width; j++) {
+                boolean isBlocked = view.isCellBlocked(i, j);
 
                 g2d.setColor(isBlocked ? new Color(200, 200, 200) : new Color(150, 150, 150));
 
@@ -273,15 +347,147 @@ public class GridPanel extends JPanel {
                 getHeight() - 10);
     }
 
-    private void drawRobots(Graphics2D g2d) {
-        for (int i = 0; i < grid.getRows(); i++) {
-            for (int j = 0; j < grid.getCols(); j++) {
-                RobotAgent robot = grid.getRobotAt(i, j);
-                if (robot != null) {
-                    drawRobot(g2d, robot, i, j);
+    private void drawTrails(Graphics2D g2d) {
+        TrajectoryRecorder recorder = grid.getTrajectories();
+        int width = grid.getCols() * cellSize;
+        int height = grid.getRows() * cellSize;
+        boolean rebuild = trailLayer == null || trailLayer.getWidth() != width ||
+                trailLayer.getHeight() != height || trailGeneration != recorder.getGeneration();
+        if (!rebuild) {
+            int evictionLimit = recorder.getTrailLength() / 2;
+            for (TrajectoryRecorder.Trail trail : recorder.getTrails()) {
+                Long from = trailDrawnFrom.get(trail.getRobotId());
+                if (from != null && trail.getFirstRetained() - from > evictionLimit) {
+                    rebuild = true;
+                    break;
                 }
             }
         }
+        if (rebuild) {
+            trailLayer = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            trailGeneration = recorder.getGeneration();
+            trailDrawnTo.clear();
+            trailDrawnFrom.clear();
+        }
+
+        Graphics2D layer = trailLayer.createGraphics();
+        layer.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        layer.setStroke(TRAIL_STROKE);
+        for (TrajectoryRecorder.Trail trail : recorder.getTrails()) {
+            long drawnTo = trailDrawnTo.getOrDefault(trail.getRobotId(), 0L);
+            int[] cells;
+            long total;
+            synchronized (trail) {
+                cells = trail.cellsSince(drawnTo);
+                total = trail.getTotal();
+            }
+            if (total == drawnTo) continue;
+            trailDrawnTo.put(trail.getRobotId(), total);
+            trailDrawnFrom.putIfAbsent(trail.getRobotId(), total - cells.length);
+            layer.setColor(new Color((trail.getRgb() & 0xFFFFFF) | 0x8C000000, true));
+            int cols = grid.getCols();
+            for (int i = 1; i < cells.length; i++) {
+                int x1 = cells[i - 1] % cols * cellSize + cellSize / 2;
+                int y1 = cells[i - 1] / cols * cellSize + cellSize / 2;
+                int x2 = cells[i] % cols * cellSize + cellSize / 2;
+                int y2 = cells[i] / cols * cellSize + cellSize / 2;
+                layer.drawLine(x1, y1, x2, y2);
+            }
+        }
+        layer.dispose();
+        g2d.drawImage(trailLayer, 0, 0, null);
+    }
+
+    // Cells at least partly inside the visible part of the panel
+    private Rectangle visibleCells() {
+        return cellsIn(getVisibleRect());
+    }
+
+    // Cells at least partly inside an area of the panel (x, y = first column, row); all of them
+    // for a null area
+    private Rectangle cellsIn(Rectangle view) {
+        if (view == null) {
+            return new Rectangle(0, 0, grid.getCols(), grid.getRows());
+        }
+        int col0 = Math.max(0, view.x / cellSize), row0 = Math.max(0, view.y / cellSize);
+        int col1 = Math.min(grid.getCols(), (view.x + view.width + cellSize - 1) / cellSize);
+        int row1 = Math.min(grid.getRows(), (view.y + view.height + cellSize - 1) / cellSize);
+        return new Rectangle(col0, row0, Math.max(0, col1 - col0), Math.max(0, row1 - row0));
+    }
+
+    // Returns true when the layer changed and needs repainting
+    private boolean updateHeatLayer() {
+        Rectangle area = visibleCells();
+        int version = grid.getHeatVersion();
+        // Occupied cells keep heating up, so only an empty, unchanged grid can be skipped
+        if (heatLayer != null && area.equals(heatArea) && version == heatVersionDrawn
+                && grid.getOccupiedCellCount() == 0) {
+            return false;
+        }
+        heatArea = area;
+        heatVersionDrawn = version;
+        if (area.isEmpty()) {
+            heatLayer = null;
+            return true;
+        }
+        int size = area.width * area.height;
+        if (heatLayer == null || heatLayer.getWidth() != area.width || heatLayer.getHeight() != area.height) {
+            heatLayer = new BufferedImage(area.width, area.height, BufferedImage.TYPE_INT_ARGB);
+            heatOccupancy = new long[size];
+            heatRefusals = new int[size];
+        }
+        copyVisibleHeat(area);
+
+        long maxOccupancy = 1;
+        int maxRefusals = 1;
+        for (int i = 0; i < size; i++) {
+            maxOccupancy = Math.max(maxOccupancy, heatOccupancy[i]);
+            maxRefusals = Math.max(maxRefusals, heatRefusals[i]);
+        }
+        int[] pixels = ((DataBufferInt) heatLayer.getRaster().getDataBuffer()).getData();
+        for (int i = 0; i < size; i++) {
+            double heat = Math.max((double) heatOccupancy[i] / maxOccupancy,
+                    (double) heatRefusals[i] / maxRefusals);
+            pixels[i] = heat <= 0 ? 0 : heatColor(heat);
+        }
+        return true;
+    }
+
+    // Fills heatOccupancy/heatRefusals (row-major over the area) one grid chunk at a time
+    private void copyVisibleHeat(Rectangle area) {
+        Arrays.fill(heatOccupancy, 0);
+        Arrays.fill(heatRefusals, 0);
+        int chunk = GridSnapshot.CHUNK;
+        for (int chunkRow = area.y / chunk; chunkRow * chunk < area.y + area.height; chunkRow++) {
+            for (int chunkCol = area.x / chunk; chunkCol * chunk < area.x + area.width; chunkCol++) {
+                if (!grid.copyHeat(chunkRow, chunkCol, chunkOccupancy, chunkRefusals)) {
+                    continue; // Never visited: stays cold
+                }
+                int row0 = Math.max(area.y, chunkRow * chunk);
+                int row1 = Math.min(area.y + area.height, (chunkRow + 1) * chunk);
+                int col0 = Math.max(area.x, chunkCol * chunk);
+                int col1 = Math.min(area.x + area.width, (chunkCol + 1) * chunk);
+                for (int x = row0; x < row1; x++) {
+                    for (int y = col0; y < col1; y++) {
+                        int from = (x % chunk) * chunk + y % chunk;
+                        int to = (x - area.y) * area.width + (y - area.x);
+                        heatOccupancy[to] = chunkOccupancy[from];
+                        heatRefusals[to] = chunkRefusals[from];
+                    }
+                }
+            }
+        }
+    }
+
+    // Yellow through orange to red as heat goes from 0 to 1
+    private static int heatColor(double heat) {
+        int green = (int) (230 * (1 - heat));
+        int alpha = (int) (HEATMAP_ALPHA * (0.3 + 0.7 * heat));
+        return (alpha << 24) | (255 << 16) | (green << 8);
+    }
+
+    private void drawRobots(Graphics2D g2d, GridSnapshot view) {
+        view.forEachRobot((i, j, robot) -> drawRobot(g2d, robot, i, j)); // Only chunks holding robots
     }
 
     private void drawRobot(Graphics2D g2d, RobotAgent robot, int row, int col) {
@@ -0,0 +1,46 @@
+// Splits the grid into square regions, each owned by its own JADE agent container with a
+// RegionAgent that keeps track of the robots currently inside. Containers are named after
+// their region so robots and the GUI can find them without a directory lookup.
+public class GridPartition implements java.io.Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final int DEFAULT_REGION_SIZE = 3;
+
+    private final int rows;
+    private final int cols;
+    private final int regionSize;
+    private final int regionRows;
+    private final int regionCols;
+
+    public GridPartition(int rows, int cols, int regionSize) {
+        this.rows = rows;
+        this.cols = cols;
+        this.regionSize = Math.max(1, regionSize);
+        this.regionRows = (rows + this.regionSize - 1) / this.regionSize;
+        this.regionCols = (cols + this.regionSize - 1) / this.regionSize;
+    }
+
+    public int regionOf(int x, int y) {
+        return (x / regionSize) * regionCols + y / regionSize;
+    }
+
+    public int getRegionCount() {
+        return regionRows * regionCols;
+    }
+
+    public String containerName(int region) {
+        return "Region-" + region;
+    }
+
+    public String regionAgentName(int region) {
+        return "RegionAgent-" + region;
+    }
+
+    // "(0,0)-(2,2)" for log lines
+    public String describe(int region) {
+        int x0 = (region / regionCols) * regionSize;
+        int y0 = (region % regionCols) * regionSize;
+        return "(" + x0 + "," + y0 + ")-(" + (Math.min(x0 + regionSize, rows) - 1) + "," +
+                (Math.min(y0 + regionSize, cols) - 1) + ")";
+    }
+}
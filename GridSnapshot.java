@@ -0,0 +1,166 @@
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// Immutable view of the grid: obstacles and occupants as of one published version. The grid
+// publishes a new snapshot after every change, so planners and renderers read a consistent
+// state without the grid lock and never see a move half done (a robot in two cells).
+//
+// Both layers are stored sparsely in CHUNK x CHUNK chunks, indexed [chunk row][chunk col].
+// A chunk with no robots, or with no obstacles or only obstacles, is a shared sentinel, so
+// memory follows what is populated rather than rows * cols. A new version copies only the
+// chunks (and chunk rows) that changed and shares everything else with the previous one.
+// With a mapped base layout the obstacle chunks hold the cells edited since, as flipped bits:
+// a cell is blocked when exactly one of base and chunk says so.
+public class GridSnapshot {
+    static final int CHUNK = 64; // chunk side in cells; one long holds a chunk row of obstacle bits
+    static final int CHUNK_CELLS = CHUNK * CHUNK;
+
+    // Sentinels, never written: a chunk is copied before its first change
+    static final RobotAgent[] NO_ROBOTS = new RobotAgent[CHUNK_CELLS];
+    static final long[] ALL_FREE = new long[CHUNK];
+    static final long[] ALL_BLOCKED = new long[CHUNK];
+    static {
+        Arrays.fill(ALL_BLOCKED, -1L);
+    }
+
+    public interface RobotVisitor {
+        void visit(int x, int y, RobotAgent robot);
+    }
+
+    private final int rows;
+    private final int cols;
+    private final RobotAgent[][][] occupants; // row-major inside each chunk
+    private final long[][][] obstacles; // bit y % CHUNK of word x % CHUNK
+    private final MappedObstacleMap base; // site layout under the chunks, null if none
+    private final int obstacleEpoch;
+    private final PathCache pathCache; // the grid's shared cache, safe to use from any thread
+    private final long version;
+
+    GridSnapshot(int rows, int cols, RobotAgent[][][] occupants, long[][][] obstacles, MappedObstacleMap base,
+                 int obstacleEpoch, PathCache pathCache, long version) {
+        this.rows = rows;
+        this.cols = cols;
+        this.occupants = occupants;
+        this.obstacles = obstacles;
+        this.base = base;
+        this.obstacleEpoch = obstacleEpoch;
+        this.pathCache = pathCache;
+        this.version = version;
+    }
+
+    // Version 0 of a grid: every chunk a sentinel
+    static GridSnapshot empty(int rows, int cols, MappedObstacleMap base, PathCache pathCache) {
+        int chunkRows = (rows + CHUNK - 1) / CHUNK, chunkCols = (cols + CHUNK - 1) / CHUNK;
+        return new GridSnapshot(rows, cols, emptyOccupants(chunkRows, chunkCols),
+                freeObstacles(chunkRows, chunkCols), base, 0, pathCache, 0);
+    }
+
+    static RobotAgent[][][] emptyOccupants(int chunkRows, int chunkCols) {
+        RobotAgent[][][] table = new RobotAgent[chunkRows][chunkCols][];
+        for (RobotAgent[][] row : table) {
+            Arrays.fill(row, NO_ROBOTS);
+        }
+        return table;
+    }
+
+    static long[][][] freeObstacles(int chunkRows, int chunkCols) {
+        long[][][] table = new long[chunkRows][chunkCols][];
+        for (long[][] row : table) {
+            Arrays.fill(row, ALL_FREE);
+        }
+        return table;
+    }
+
+    public boolean isCellBlocked(int x, int y) {
+        if (x < 0 || x >= rows || y < 0 || y >= cols) {
+            return true; // Out of bounds counts as blocked
+        }
+        return (obstacleWord(x, y / CHUNK) & (1L << (y % CHUNK))) != 0;
+    }
+
+    // Effective obstacle bits of row x, columns 64 * w .. 64 * w + 63 (CHUNK is one word wide)
+    long obstacleWord(int x, int w) {
+        long edits = obstacles[x / CHUNK][w][x % CHUNK];
+        return base == null ? edits : edits ^ base.word(x, w);
+    }
+
+    public RobotAgent getRobotAt(int x, int y) {
+        if (x < 0 || x >= rows || y < 0 || y >= cols) {
+            return null;
+        }
+        return occupants[x / CHUNK][y / CHUNK][(x % CHUNK) * CHUNK + y % CHUNK];
+    }
+
+    public boolean isCellFree(int x, int y) {
+        return !isCellBlocked(x, y) && getRobotAt(x, y) == null;
+    }
+
+    // Visits every robot, skipping chunks without any
+    public void forEachRobot(RobotVisitor visitor) {
+        for (int cr = 0; cr < occupants.length; cr++) {
+            for (int cc = 0; cc < occupants[cr].length; cc++) {
+                RobotAgent[] chunk = occupants[cr][cc];
+                if (chunk == NO_ROBOTS) {
+                    continue;
+                }
+                for (int i = 0; i < CHUNK_CELLS; i++) {
+                    if (chunk[i] != null) {
+                        visitor.visit(cr * CHUNK + i / CHUNK, cc * CHUNK + i % CHUNK, chunk[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    // Visits every blocked cell (index x * cols + y), skipping obstacle-free chunks. With a
+    // base layout every word of it is read, so this costs time in proportion to the map.
+    public void forEachBlocked(IntConsumer visitor) {
+        if (base != null) {
+            for (int x = 0; x < rows; x++) {
+                for (int w = 0; w < obstacles[x / CHUNK].length; w++) {
+                    for (long bits = obstacleWord(x, w); bits != 0; bits &= bits - 1) {
+                        int y = w * CHUNK + Long.numberOfTrailingZeros(bits);
+                        if (y < cols) {
+                            visitor.accept(x * cols + y);
+                        }
+                    }
+                }
+            }
+            return;
+        }
+        forEachEdit(visitor); // Without a base the edits are the obstacles
+    }
+
+    // Visits every cell that differs from the base layout (every blocked cell without one),
+    // reading only the chunks that hold edits
+    public void forEachEdit(IntConsumer visitor) {
+        for (int cr = 0; cr < obstacles.length; cr++) {
+            for (int cc = 0; cc < obstacles[cr].length; cc++) {
+                long[] chunk = obstacles[cr][cc];
+                if (chunk == ALL_FREE) {
+                    continue;
+                }
+                for (int i = 0; i < CHUNK; i++) {
+                    int x = cr * CHUNK + i;
+                    for (long bits = chunk[i]; bits != 0 && x < rows; bits &= bits - 1) {
+                        int y = cc * CHUNK + Long.numberOfTrailingZeros(bits);
+                        if (y < cols) {
+                            visitor.accept(x * cols + y);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // Shared with the grid, which copies before changing anything
+    RobotAgent[][][] occupantTable() { return occupants; }
+    long[][][] obstacleTable() { return obstacles; }
+
+    public MappedObstacleMap getBase() { return base; }
+    public long getVersion() { return version; }
+    public int getObstacleEpoch() { return obstacleEpoch; }
+    public PathCache getPathCache() { return pathCache; }
+    public int getRows() { return rows; }
+    public int getCols() { return cols; }
+}
@@ -0,0 +1,223 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.awt.Color;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Reads an EventJournal back and re-applies its grid mutations in sequence order, either onto
+// the GUI's grid or headless. Robots are rebuilt as stand-ins that only carry identity and
+// position; messages are passed to the step callback for display.
+public class JournalReplayer implements AutoCloseable {
+    private final DataInputStream in;
+    private final int rows;
+    private final int cols;
+    private final String layoutFile; // site layout the recording started from, "" if none
+    private final long layoutRevision;
+    private final Map<String, RobotAgent> robots = new HashMap<>();
+    private long expectedSeq = 0;
+    private int divergences = 0; // mutations the grid rejected, or gaps in the sequence
+
+    public static class Record {
+        public long seq, nanos;
+        public byte type;
+        public int x, y, flag, tx, ty, rgb;
+        public String a, b, c, d;
+
+        public boolean isMessage() {
+            return type == EventJournal.SEND || type == EventJournal.RECEIVE;
+        }
+
+        public String describe() {
+            switch (type) {
+                case EventJournal.SPAWN:
+                    return "SPAWN " + a + (flag != 0 ? " (static)" : "") + " at (" + x + "," + y +
+                            ") → (" + tx + "," + ty + ")";
+                case EventJournal.OCCUPY: return "OCCUPY (" + x + "," + y + ") by " + a;
+                case EventJournal.FREE: return "FREE (" + x + "," + y + ")";
+                case EventJournal.BLOCK: return (flag != 0 ? "BLOCK" : "UNBLOCK") + " (" + x + "," + y + ")";
+                case EventJournal.CLEAR_BLOCKS: return "CLEAR_BLOCKS";
+                case EventJournal.SEND:
+                    return a + " → " + b + " " + performativeName(flag) + " " + c;
+                case EventJournal.RECEIVE:
+                    return a + " ← " + b + " " + performativeName(flag) + " " + c;
+                default: return "UNKNOWN type " + type;
+            }
+        }
+    }
+
+    public JournalReplayer(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 64 * 1024));
+        if (in.readInt() != EventJournal.MAGIC) {
+            in.close();
+            throw new IOException("Not an event journal: " + file);
+        }
+        int version = in.readInt();
+        if (version != EventJournal.VERSION) {
+            in.close();
+            throw new IOException("Unsupported journal version " + version);
+        }
+        this.rows = in.readInt();
+        this.cols = in.readInt();
+        this.layoutFile = readString();
+        this.layoutRevision = in.readLong();
+    }
+
+    public int getRows() { return rows; }
+    public int getCols() { return cols; }
+    public String getLayoutFile() { return layoutFile; }
+    public long getLayoutRevision() { return layoutRevision; }
+    public int getDivergences() { return divergences; }
+
+    // Next record in the file, or null at the end (a torn final record counts as the end)
+    public Record next() throws IOException {
+        try {
+            int length = in.readInt();
+            if (length <= 0) {
+                throw new IOException("Corrupt record after seq " + (expectedSeq - 1));
+            }
+            Record r = new Record();
+            r.seq = in.readLong();
+            r.nanos = in.readLong();
+            r.type = in.readByte();
+            r.x = in.readInt();
+            r.y = in.readInt();
+            r.flag = in.readInt();
+            r.tx = in.readInt();
+            r.ty = in.readInt();
+            r.rgb = in.readInt();
+            r.a = readString();
+            r.b = readString();
+            r.c = readString();
+            r.d = readString();
+            return r;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private String readString() throws IOException {
+        short length = in.readShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Applies one record to the grid; returns false when the grid disagrees with the journal
+    public boolean apply(Record r, Grid grid) {
+        boolean consistent = r.seq == expectedSeq;
+        expectedSeq = r.seq + 1;
+        switch (r.type) {
+            case EventJournal.SPAWN:
+                robots.put(r.a, RobotAgent.forReplay(r.a, r.x, r.y, r.tx, r.ty, r.flag != 0, new Color(r.rgb)));
+                break;
+            case EventJournal.OCCUPY: {
+                RobotAgent robot = robots.computeIfAbsent(r.a,
+                        id -> RobotAgent.forReplay(id, r.x, r.y, r.x, r.y, false, Color.GRAY));
+                robot.setReplayPosition(r.x, r.y);
+                consistent &= grid.occupyCell(r.x, r.y, robot);
+                break;
+            }
+            case EventJournal.FREE:
+                consistent &= grid.getRobotAt(r.x, r.y) != null;
+                grid.freeCell(r.x, r.y);
+                break;
+            case EventJournal.BLOCK:
+                consistent &= grid.setCellBlocked(r.x, r.y, r.flag != 0);
+                break;
+            case EventJournal.CLEAR_BLOCKS:
+                grid.clearAllBlockedCells();
+                break;
+            default:
+                break; // Messages carry no grid state
+        }
+        if (!consistent) {
+            divergences++;
+        }
+        return consistent;
+    }
+
+    // Replays the whole journal. speed is a multiple of the recorded pace; 0 or less runs
+    // as fast as possible. Returns the number of records applied.
+    public long replay(Grid grid, double speed, Consumer<Record> onStep) throws IOException, InterruptedException {
+        long count = 0;
+        long wallStart = System.nanoTime();
+        Record r;
+        while ((r = next()) != null) {
+            if (speed > 0) {
+                long due = wallStart + (long) (r.nanos / speed);
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+                }
+            }
+            apply(r, grid);
+            if (onStep != null) {
+                onStep.accept(r);
+            }
+            count++;
+        }
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private static String performativeName(int performative) {
+        switch (performative) {
+            case jade.lang.acl.ACLMessage.REQUEST: return "REQUEST";
+            case jade.lang.acl.ACLMessage.AGREE: return "AGREE";
+            case jade.lang.acl.ACLMessage.REFUSE: return "REFUSE";
+            case jade.lang.acl.ACLMessage.INFORM: return "INFORM";
+            case jade.lang.acl.ACLMessage.REQUEST_WHEN: return "REQUEST_WHEN";
+            case jade.lang.acl.ACLMessage.PROPAGATE: return "PROPAGATE";
+            default: return "PERFORMATIVE(" + performative + ")";
+        }
+    }
+
+    // Headless replay: java JournalReplayer <journal> [speed] [--quiet]
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: java JournalReplayer <journal> [speed, 0 = max] [--quiet]");
+            System.exit(2);
+        }
+        double speed = args.length > 1 && !args[1].startsWith("--") ? Double.parseDouble(args[1]) : 0;
+        boolean quiet = args[args.length - 1].equals("--quiet");
+
+        try (JournalReplayer replayer = new JournalReplayer(Paths.get(args[0]))) {
+            Grid grid = replayer.getLayoutFile().isEmpty() ? new Grid(replayer.getRows(), replayer.getCols())
+                    : new Grid(MappedObstacleMap.open(Paths.get(replayer.getLayoutFile())));
+            if (!grid.hasLayout(replayer.getLayoutFile(), replayer.getLayoutRevision())) {
+                System.err.println("Layout " + replayer.getLayoutFile() + " changed since revision " +
+                        replayer.getLayoutRevision() + " was recorded");
+                System.exit(1);
+            }
+            long start = System.nanoTime();
+            long[] lastNanos = {0};
+            long count = replayer.replay(grid, speed, r -> {
+                lastNanos[0] = r.nanos;
+                if (!quiet) {
+                    System.out.printf("#%-6d %9.3f ms  %s%n", r.seq, r.nanos / 1_000_000.0, r.describe());
+                }
+            });
+            double elapsedMs = (System.nanoTime() - start) / 1_000_000.0;
+            grid.printGridState();
+            System.out.printf("Replayed %d records (%.1f ms recorded) in %.1f ms, %d divergences%n",
+                    count, lastNanos[0] / 1_000_000.0, elapsedMs, replayer.getDivergences());
+        }
+    }
+}
@@ -28,12 +28,28 @@ public class MainFrame extends JFrame {
     private JButton clearStaticRobotsButton;
     private boolean staticRobotEditMode = false;
     private boolean eraseStaticMode = false;
+    private JComboBox<PathPlanner.Mode> plannerModeBox;
+    private JComboBox<MutexMode> mutexModeBox;
+    private JCheckBox cbsPlanBox;
+    private JCheckBox journalBox;
+    private JCheckBox regionsBox;
+    private JComboBox<SimulationClock.Speed> speedBox;
+    private final java.util.List<AgentContainer> regionContainers = new java.util.ArrayList<>();
+    private EventJournal journal;
+    private static final double REPLAY_SPEED = 10; // multiple of the recorded pace
+    private static final double CBS_SUBOPTIMALITY = 1.5;
+    private static final long CBS_TIME_BUDGET_MS = 500;
+    private final FleetPlanner fleetPlanner = new FleetPlanner(java.util.concurrent.ForkJoinPool.commonPool());
+    private static final int BENCHMARK_RUNS = 200;
+    private JLabel liveStatsLabel;
+    private static final int STATS_REFRESH_MS = 1000;
 
     public MainFrame() {
         setTitle("JADE Multi-Robot Coordination - Adaptive Static Robots");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLayout(new BorderLayout());
-        grid = new Grid(5, 5);
+        grid = openGrid();
+        FleetMonitor.getInstance().registerGrid(grid);
         gridPanel = new GridPanel(grid);
         GridMouseListener mouseListener = new GridMouseListener();
         gridPanel.addMouseListener(mouseListener);
@@ -61,7 +77,7 @@ public class MainFrame extends JFrame {
         JScrollPane logScroll = new JScrollPane(logArea);
         logScroll.setBorder(BorderFactory.createTitledBorder("Simulation Log"));
         add(logScroll, BorderLayout.EAST);
-        JPanel controlPanel = new JPanel(new GridLayout(5, 4, 10, 10));
+        JPanel controlPanel = new JPanel(new GridLayout(6, 4, 10, 10));
         controlPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
         controlPanel.setBackground(new Color(248, 248, 248));
         JButton setupButton = createStyledButton("Start Setup Mode",
@@ -122,6 +138,18 @@ public class MainFrame extends JFrame {
         JButton updateStaticButton = createStyledButton("Update Static Robots",
                 new Color(128, 0, 128), "Update static robot positions");
 
+        JButton benchmarkButton = createStyledButton("Benchmark Planners",
+                new Color(63, 81, 181), "Compare planner modes on the Robot1 scenario");
+
+        JButton heatmapButton = createStyledButton("Congestion Heatmap",
+                new Color(230, 81, 0), "Show where robots spend time and get refused");
+
+        JButton replayButton = createStyledButton("Replay Journal",
+                new Color(69, 90, 100), "Replay a recorded event journal step by step");
+
+        JButton checkpointButton = createStyledButton("Checkpoint",
+                new Color(46, 125, 50), "Save the running simulation or resume a saved one");
+
         // Add action listeners
         setupButton.addActionListener(e -> enterSetupMode());
         resetSetupButton.addActionListener(e -> resetSetup());
@@ -143,6 +171,10 @@ public class MainFrame extends JFrame {
         statsButton.addActionListener(e -> showStatistics());
         manualStaticButton.addActionListener(e -> manualStaticRobotSetup());
         updateStaticButton.addActionListener(e -> updateStaticRobots());
+        benchmarkButton.addActionListener(e -> benchmarkPlanners());
+        heatmapButton.addActionListener(e -> toggleHeatmap());
+        replayButton.addActionListener(e -> replayJournal());
+        checkpointButton.addActionListener(e -> showCheckpointMenu((JButton) e.getSource()));
         controlPanel.add(setupButton);
         controlPanel.add(resetSetupButton);
         controlPanel.add(autoSetupButton);
@@ -163,6 +195,10 @@ public class MainFrame extends JFrame {
         controlPanel.add(deadlockButton);
         controlPanel.add(manualStaticButton);
         controlPanel.add(updateStaticButton);
+        controlPanel.add(benchmarkButton);
+        controlPanel.add(heatmapButton);
+        controlPanel.add(replayButton);
+        controlPanel.add(checkpointButton);
         add(controlPanel, BorderLayout.SOUTH);
         JPanel setupPanel = createSetupPanel();
         add(setupPanel, BorderLayout.WEST);
@@ -183,7 +219,7 @@ public class MainFrame extends JFrame {
             int cellSize = gridPanel.getCellSize();
             int col = e.getX() / cellSize;
             int row = e.getY() / cellSize;
-            if (row >= 0 && row < 5 && col >= 0 && col < 5) {
+            if (row >= 0 && row < grid.getRows() && col >= 0 && col < grid.getCols()) {
                 if (gridPanel.isBlockEditMode()) {
                     handleObstacleEdit(row, col, e.getButton() == MouseEvent.BUTTON3);
                 } else if (staticRobotEditMode) {
@@ -200,7 +236,7 @@ public class MainFrame extends JFrame {
             int col = e.getX() / cellSize;
             int row = e.getY() / cellSize;
 
-            if (row >= 0 && row < 5 && col >= 0 && col < 5) {
+            if (row >= 0 && row < grid.getRows() && col >= 0 && col < grid.getCols()) {
                 boolean rightClick = (e.getModifiersEx() & MouseEvent.BUTTON3_DOWN_MASK) != 0;
 
                 if (gridPanel.isBlockEditMode()) {
@@ -327,16 +363,7 @@ public class MainFrame extends JFrame {
     }
 
     private void clearAllStaticRobots() {
-        synchronized(grid) {
-            for (int i = 0; i < 5; i++) {
-                for (int j = 0; j < 5; j++) {
-                    RobotAgent robot = grid.getRobotAt(i, j);
-                    if (robot != null && robot.isStatic()) {
-                        grid.freeCell(i, j);
-                    }
-                }
-            }
-        }
+        freeRobots(true);
         logMessage("[STATIC] Cleared all static robots from grid");
         gridPanel.repaint();
     }
@@ -364,7 +391,7 @@ public class MainFrame extends JFrame {
     }
 
     private void addWall() {
-        for (int row = 0; row < 5; row++) {
+        for (int row = 0; row < grid.getRows(); row++) {
             int col = 2;
             if ((row == robot1StartX && col == robot1StartY) ||
                     (row == robot1TargetX && col == robot1TargetY) ||
@@ -498,6 +525,51 @@ public class MainFrame extends JFrame {
         staticPanel.add(staticInfo);
         staticPanel.add(Box.createVerticalStrut(5));
         staticPanel.add(staticControls);
+        JPanel optionsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 2));
+        optionsPanel.setBorder(BorderFactory.createTitledBorder("Simulation Options"));
+        optionsPanel.setBackground(new Color(250, 250, 250));
+        optionsPanel.setMaximumSize(new Dimension(230, 200));
+        JLabel plannerLabel = new JLabel("Planner:");
+        plannerLabel.setFont(new Font("Arial", Font.PLAIN, 11));
+        plannerModeBox = new JComboBox<>(PathPlanner.Mode.values());
+        plannerModeBox.setFont(new Font("Arial", Font.PLAIN, 11));
+        plannerModeBox.setToolTipText("Route planning mode for moving robots (GREEDY = step-by-step)");
+        optionsPanel.add(plannerLabel);
+        optionsPanel.add(plannerModeBox);
+        JLabel mutexLabel = new JLabel("Mutex:");
+        mutexLabel.setFont(new Font("Arial", Font.PLAIN, 11));
+        mutexModeBox = new JComboBox<>(MutexMode.values());
+        mutexModeBox.setFont(new Font("Arial", Font.PLAIN, 11));
+        mutexModeBox.setToolTipText("Cell access protocol: per-cell REQUEST/AGREE or one token per grid region");
+        optionsPanel.add(mutexLabel);
+        optionsPanel.add(mutexModeBox);
+        cbsPlanBox = new JCheckBox("Precompute CBS plan");
+        cbsPlanBox.setFont(new Font("Arial", Font.PLAIN, 11));
+        cbsPlanBox.setBackground(new Color(250, 250, 250));
+        cbsPlanBox.setToolTipText("Plan collision-free timed paths before start; robots message only when they drift");
+        optionsPanel.add(cbsPlanBox);
+        journalBox = new JCheckBox("Record event journal");
+        journalBox.setFont(new Font("Arial", Font.PLAIN, 11));
+        journalBox.setBackground(new Color(250, 250, 250));
+        journalBox.setToolTipText("Write every grid change and message to journal-<time>.bin for replay");
+        optionsPanel.add(journalBox);
+        regionsBox = new JCheckBox("Region containers");
+        regionsBox.setFont(new Font("Arial", Font.PLAIN, 11));
+        regionsBox.setBackground(new Color(250, 250, 250));
+        regionsBox.setToolTipText("Give each grid region its own agent container and hand robots over at boundaries");
+        optionsPanel.add(regionsBox);
+        JLabel speedLabel = new JLabel("Speed:");
+        speedLabel.setFont(new Font("Arial", Font.PLAIN, 11));
+        speedBox = new JComboBox<>(SimulationClock.Speed.values());
+        speedBox.setFont(new Font("Arial", Font.PLAIN, 11));
+        speedBox.setToolTipText("Simulated time rate for all robot intervals and timeouts; applies immediately");
+        speedBox.addActionListener(e -> {
+            SimulationClock.Speed speed = (SimulationClock.Speed) speedBox.getSelectedItem();
+            grid.getClock().setSpeed(speed);
+            logMessage("[CLOCK] Simulation speed " + speed);
+        });
+        optionsPanel.add(speedLabel);
+        optionsPanel.add(speedBox);
         JLabel statusLabel = new JLabel("Status: Setup Required");
         statusLabel.setFont(new Font("Arial", Font.BOLD, 12));
         statusLabel.setForeground(Color.RED);
@@ -513,10 +585,20 @@ public class MainFrame extends JFrame {
         setupPanel.add(robot2Panel);
         setupPanel.add(Box.createVerticalStrut(10));
         setupPanel.add(staticPanel);
+        setupPanel.add(Box.createVerticalStrut(10));
+        setupPanel.add(optionsPanel);
         setupPanel.add(Box.createVerticalStrut(20));
         setupPanel.add(statusLabel);
+        liveStatsLabel = new JLabel(" ");
+        liveStatsLabel.setFont(new Font("Arial", Font.PLAIN, 10));
+        liveStatsLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        setupPanel.add(Box.createVerticalStrut(5));
+        setupPanel.add(liveStatsLabel);
         setupPanel.add(Box.createVerticalGlue());
 
+        // Live one-line summary, refreshed from the shared metrics
+        new javax.swing.Timer(STATS_REFRESH_MS, e -> refreshLiveStats()).start();
+
         return setupPanel;
     }
 
@@ -595,13 +677,7 @@ public class MainFrame extends JFrame {
         currentSetupState = SetupState.SELECT_ROBOT1_START;
         setupInstruction = "Click to select Robot1 Start Position";
 
-        synchronized(grid) {
-            for (int i = 0; i < 5; i++) {
-                for (int j = 0; j < 5; j++) {
-                    grid.freeCell(i, j);
-                }
-            }
-        }
+        freeRobots(false);
 
         updateSetupPanel();
         updateInstructionLabel();
@@ -629,11 +705,7 @@ public class MainFrame extends JFrame {
 
     private void visualizeSetup() {
         synchronized(grid) {
-            for (int i = 0; i < 5; i++) {
-                for (int j = 0; j < 5; j++) {
-                    grid.freeCell(i, j);
-                }
-            }
+            freeRobots(false);
 
             gridPanel.setSetupPositions(robot1StartX, robot1StartY, robot1TargetX, robot1TargetY,
                     robot2StartX, robot2StartY, robot2TargetX, robot2TargetY);
@@ -745,7 +817,9 @@ public class MainFrame extends JFrame {
                 profile.setParameter(Profile.GUI, "false");
 
                 AgentContainer container = rt.createMainContainer(profile);
+                stopJournal();
                 resetSimulation();
+                startJournal();
                 robot1StartX = 0; robot1StartY = 2;
                 robot1TargetX = 4; robot1TargetY = 2;
                 robot2StartX = 4; robot2StartY = 2;
@@ -804,7 +878,12 @@ public class MainFrame extends JFrame {
                         0,                  // originalX (not used)
                         0,                  // originalY (not used)
                         grid,               // shared grid
-                        this               // main frame
+                        this,              // main frame
+                        getPlannerMode(),  // route planning mode
+                        null,              // no CBS plan
+                        null,              // no precomputed route
+                        null,              // not restored
+                        getMutexMode()     // cell access protocol
                 };
 
                 AgentController robot1 = container.createNewAgent(
@@ -825,7 +904,12 @@ public class MainFrame extends JFrame {
                         0,                  // originalX (not used)
                         0,                  // originalY (not used)
                         grid,               // shared grid
-                        this               // main frame
+                        this,              // main frame
+                        getPlannerMode(),  // route planning mode
+                        null,              // no CBS plan
+                        null,              // no precomputed route
+                        null,              // not restored
+                        getMutexMode()     // cell access protocol
                 };
 
                 AgentController robot2 = container.createNewAgent(
@@ -872,7 +956,9 @@ public class MainFrame extends JFrame {
                 profile.setParameter(Profile.GUI, "false");
 
                 AgentContainer container = rt.createMainContainer(profile);
+                stopJournal();
                 resetSimulation();
+                startJournal();
                 robot1StartX = 2; robot1StartY = 2;
                 robot1TargetX = 4; robot1TargetY = 4;
 
@@ -917,7 +1003,12 @@ public class MainFrame extends JFrame {
                         0,
                         0,
                         grid,
-                        this
+                        this,
+                        getPlannerMode(),
+                        null,
+                        null,
+                        null,
+                        getMutexMode()
                 };
 
                 AgentController robot1 = container.createNewAgent("Robot1", "RobotAgent", robot1Args);
@@ -936,16 +1027,390 @@ public class MainFrame extends JFrame {
     }
 
     private void showPaths() {
-        logMessage("[INFO] Path visualization would show robot trajectories");
-        logMessage("[INFO] Feature would draw lines showing past movements");
+        boolean show = !gridPanel.isShowTrails();
+        gridPanel.setShowTrails(show);
+        TrajectoryRecorder trajectories = grid.getTrajectories();
+        if (show) {
+            logMessage("[PATHS] Showing trails for " + trajectories.getTrails().size() +
+                    " robots (last " + trajectories.getTrailLength() + " cells each)");
+        } else {
+            logMessage("[PATHS] Trails hidden");
+        }
+    }
+
+    // ============ EVENT JOURNAL ============
+
+    private void startJournal() {
+        if (!journalBox.isSelected()) {
+            return;
+        }
+        java.nio.file.Path file = java.nio.file.Paths.get("journal-" +
+                new java.text.SimpleDateFormat("yyyyMMdd-HHmmss").format(new java.util.Date()) + ".bin");
+        try {
+            journal = new EventJournal(file, grid.getRows(), grid.getCols(), grid.getLayout());
+            grid.setJournal(journal);
+            logMessage("[JOURNAL] Recording to " + file.toAbsolutePath());
+        } catch (java.io.IOException e) {
+            logMessage("[JOURNAL ERROR] Cannot open journal: " + e.getMessage());
+        }
+    }
+
+    private void stopJournal() {
+        if (journal == null) {
+            return;
+        }
+        grid.setJournal(null);
+        try {
+            journal.close();
+            logMessage("[JOURNAL] Closed after " + journal.getRecordCount() + " records");
+        } catch (java.io.IOException e) {
+            logMessage("[JOURNAL ERROR] " + e.getMessage());
+        }
+        journal = null;
+    }
+
+    private void replayJournal() {
+        JFileChooser chooser = new JFileChooser(new java.io.File("."));
+        chooser.setDialogTitle("Replay Event Journal");
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        java.nio.file.Path file = chooser.getSelectedFile().toPath();
+
+        new Thread(() -> {
+            try (JournalReplayer replayer = new JournalReplayer(file)) {
+                if (replayer.getRows() != grid.getRows() || replayer.getCols() != grid.getCols()) {
+                    logMessage("[REPLAY ERROR] Journal grid is " + replayer.getRows() + "x" + replayer.getCols() +
+                            ", current grid is " + grid.getRows() + "x" + grid.getCols());
+                    return;
+                }
+                if (!grid.hasLayout(replayer.getLayoutFile(), replayer.getLayoutRevision())) {
+                    logMessage("[REPLAY ERROR] Journal was recorded over layout '" + replayer.getLayoutFile() +
+                            "' revision " + replayer.getLayoutRevision() + ", which the current grid does not have");
+                    return;
+                }
+                stopJournal();
+                resetSimulation();
+                grid.resetObstacleEdits(); // The journal starts from the bare layout
+                logMessage("[REPLAY] ===============================================");
+                logMessage("[REPLAY] Replaying " + file.getFileName() + " at " + REPLAY_SPEED + "x");
+                long start = System.nanoTime();
+                long count = replayer.replay(grid, REPLAY_SPEED, r -> {
+                    if (r.isMessage()) {
+                        logMessage(String.format("[REPLAY] #%d %.0f ms %s", r.seq, r.nanos / 1_000_000.0, r.describe()));
+                    } else {
+                        updateGrid();
+                    }
+                });
+                logMessage(String.format("[REPLAY] Done: %d records in %.1f s, %d divergences", count,
+                        (System.nanoTime() - start) / 1e9, replayer.getDivergences()));
+                logMessage("[REPLAY] ===============================================");
+                updateGrid();
+            } catch (Exception e) {
+                logMessage("[REPLAY ERROR] " + e.getMessage());
+            }
+        }).start();
+    }
+
+    // ============ CHECKPOINTS ============
+
+    private void showCheckpointMenu(JButton source) {
+        JPopupMenu menu = new JPopupMenu();
+        JMenuItem saveItem = new JMenuItem("Save Checkpoint");
+        saveItem.addActionListener(e -> saveCheckpoint());
+        JMenuItem restoreItem = new JMenuItem("Restore Checkpoint...");
+        restoreItem.addActionListener(e -> restoreCheckpoint());
+        menu.add(saveItem);
+        menu.add(restoreItem);
+        menu.show(source, 0, source.getHeight());
+    }
+
+    private void saveCheckpoint() {
+        int expected = FleetMonitor.getInstance().getRobotCount();
+        if (expected == 0) {
+            logMessage("[CHECKPOINT] No running robots to save");
+            return;
+        }
+        SimulationCheckpoint checkpoint = grid.beginCheckpoint(expected);
+        for (RobotAgent robot : FleetMonitor.getInstance().getRobots()) {
+            robot.wake(); // Resting agents sleep until woken
+        }
+        java.nio.file.Path file = java.nio.file.Paths.get("checkpoint-" +
+                new java.text.SimpleDateFormat("yyyyMMdd-HHmmss").format(new java.util.Date()) + ".ckpt");
+
+        // Agents add their state as they next run their mailbox behaviour; write once all have
+        new Thread(() -> {
+            try {
+                boolean complete = checkpoint.awaitRobots(SimulationCheckpoint.CAPTURE_TIMEOUT_MS);
+                grid.endCheckpoint(checkpoint);
+                if (!complete) {
+                    logMessage("[CHECKPOINT ERROR] Only " + checkpoint.getRobots().size() + " of " + expected +
+                            " robots answered within " + SimulationCheckpoint.CAPTURE_TIMEOUT_MS + " ms");
+                    return;
+                }
+                checkpoint.write(file);
+                logMessage("[CHECKPOINT] Saved " + expected + " robots to " + file.toAbsolutePath() +
+                        " (" + java.nio.file.Files.size(file) + " bytes)");
+            } catch (Exception e) {
+                logMessage("[CHECKPOINT ERROR] " + e.getMessage());
+            }
+        }, "checkpoint-writer").start();
+    }
+
+    private void restoreCheckpoint() {
+        JFileChooser chooser = new JFileChooser(new java.io.File("."));
+        chooser.setDialogTitle("Restore Checkpoint");
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        java.nio.file.Path file = chooser.getSelectedFile().toPath();
+
+        new Thread(() -> {
+            try {
+                SimulationCheckpoint checkpoint = SimulationCheckpoint.read(file);
+                if (checkpoint.getRows() != grid.getRows() || checkpoint.getCols() != grid.getCols()) {
+                    logMessage("[CHECKPOINT ERROR] Checkpoint grid is " + checkpoint.getRows() + "x" +
+                            checkpoint.getCols() + ", current grid is " + grid.getRows() + "x" + grid.getCols());
+                    return;
+                }
+                if (!grid.hasLayout(checkpoint.getLayoutFile(), checkpoint.getLayoutRevision())) {
+                    logMessage("[CHECKPOINT ERROR] Checkpoint was taken over layout '" + checkpoint.getLayoutFile() +
+                            "' revision " + checkpoint.getLayoutRevision() + ", which the current grid does not have");
+                    return;
+                }
+                logMessage("[CHECKPOINT] ===============================================");
+                logMessage("[CHECKPOINT] Restoring " + file.getFileName());
+
+                Runtime rt = Runtime.instance();
+                Profile profile = new ProfileImpl();
+                profile.setParameter(Profile.MAIN_HOST, "localhost");
+                profile.setParameter(Profile.MAIN_PORT, "1099");
+                profile.setParameter(Profile.GUI, "false");
+
+                AgentContainer container = rt.createMainContainer(profile);
+                stopJournal();
+                resetSimulation();
+                grid.resetObstacleEdits();
+                int cols = grid.getCols();
+                for (int cell : checkpoint.getEditedCells()) { // Each edit flips the layout's cell
+                    grid.setCellBlocked(cell / cols, cell % cols, !grid.isCellBlocked(cell / cols, cell % cols));
+                }
+                grid.getMetrics().reset();
+                grid.getTrajectories().clear();
+                grid.resetHeat();
+                startJournal();
+
+                java.util.List<AgentController> agents = new java.util.ArrayList<>();
+                java.util.Set<Integer> taken = new java.util.HashSet<>();
+                for (SimulationCheckpoint.RobotState state : checkpoint.getRobots()) {
+                    int[] position = restorePosition(state, checkpoint.getPosition(state.robotId), taken);
+                    if (position == null) {
+                        logMessage("[CHECKPOINT ERROR] No free cell left for " + state.robotId + ", not restored");
+                        continue;
+                    }
+                    Object[] robotArgs = {
+                            state.robotId,
+                            position[0],
+                            position[1],
+                            state.targetX,
+                            state.targetY,
+                            state.isStatic,
+                            state.requestsNeededToMove,
+                            state.originalX,
+                            state.originalY,
+                            grid,
+                            this,
+                            PathPlanner.Mode.valueOf(state.planningMode),
+                            null,
+                            null,
+                            state,
+                            getMutexMode()
+                    };
+                    agents.add(container.createNewAgent(state.robotId, "RobotAgent", robotArgs));
+                    logMessage("[CHECKPOINT] " + state.robotId + " at (" + position[0] + "," + position[1] +
+                            ") → (" + state.targetX + "," + state.targetY + "), clock " + state.logicalClock);
+                }
+                grid.getMetrics().markLaunch();
+                for (AgentController agent : agents) {
+                    agent.start();
+                }
+                logMessage("[CHECKPOINT] ✓ Resumed " + agents.size() + " robots");
+                logMessage("[CHECKPOINT] ===============================================");
+                updateGrid();
+            } catch (Exception e) {
+                logMessage("[CHECKPOINT ERROR] Failed to restore: " + e.getMessage());
+            }
+        }).start();
+    }
+
+    // Cell a restored robot starts in: the one it recorded, else its original cell, else the
+    // nearest free cell around that. Checked against obstacles and the robots placed so far, so
+    // a robot that recorded no cell cannot land on another one. Null when no cell is free.
+    private int[] restorePosition(SimulationCheckpoint.RobotState state, int[] recorded, java.util.Set<Integer> taken) {
+        int cols = grid.getCols();
+        if (recorded != null && !grid.isCellBlocked(recorded[0], recorded[1]) &&
+                taken.add(recorded[0] * cols + recorded[1])) {
+            return recorded;
+        }
+        int reach = Math.max(grid.getRows(), cols);
+        for (int r = 0; r < reach; r++) { // Rings of growing distance around the original cell
+            for (int x = state.originalX - r; x <= state.originalX + r; x++) {
+                // Whole rows at the ring's top and bottom, only its two ends in between
+                int step = Math.abs(x - state.originalX) == r ? 1 : 2 * r;
+                for (int y = state.originalY - r; y <= state.originalY + r; y += step) {
+                    if (!grid.isCellBlocked(x, y) && taken.add(x * cols + y)) {
+                        return new int[]{x, y};
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private void toggleHeatmap() {
+        boolean show = !gridPanel.isShowHeatmap();
+        gridPanel.setShowHeatmap(show);
+        logMessage(show ? "[HEATMAP] Showing occupancy time and refusals per cell" : "[HEATMAP] Heatmap hidden");
     }
 
     private void showStatistics() {
-        logMessage("[STATS] Statistics feature would show:");
-        logMessage("[STATS] - Total moves made");
-        logMessage("[STATS] - Collision attempts prevented");
-        logMessage("[STATS] - Deadlock detections");
-        logMessage("[STATS] - Alternate paths found");
+        SimulationMetrics.Snapshot stats = grid.getMetrics().snapshot();
+        logMessage("[STATS] ===============================================");
+        logMessage("[STATS] Total moves made: " + stats.moves);
+        for (java.util.Map.Entry<String, Long> entry : stats.movesPerRobot.entrySet()) {
+            logMessage("[STATS]   " + entry.getKey() + ": " + entry.getValue() + " moves");
+        }
+        logMessage("[STATS] Requests sent: " + stats.requestsSent + " | AGREE: " + stats.agreesReceived +
+                " | REFUSE: " + stats.refusals + " | Retries: " + stats.retries);
+        logMessage("[STATS] Messages sent (" + getMutexMode() + "): " + stats.messagesSent +
+                " | Token transfers: " + stats.tokenTransfers + " | Entries on held token: " + stats.localEntries);
+        logMessage("[STATS] Segments reserved: " + stats.segments + " covering " + stats.segmentCells + " cells");
+        logMessage(String.format("[STATS] Request→AGREE latency: p50 %.1f ms, p99 %.1f ms, max %.1f ms (%d samples)",
+                stats.agreeP50Micros / 1000.0, stats.agreeP99Micros / 1000.0,
+                stats.agreeMaxMicros / 1000.0, stats.agreeCount));
+        logMessage(String.format("[STATS] Launch→first motion: max %.1f ms (%d robots)",
+                stats.firstMotionMaxMicros / 1000.0, stats.firstMotionCount));
+        logMessage("[STATS] Collision attempts prevented: " + stats.collisionsPrevented);
+        logMessage("[STATS] Deadlock detections: " + stats.deadlockDetections);
+        logMessage("[STATS] Alternate paths found: " + stats.alternatePaths);
+        logMessage("[STATS] Idle time waiting on move interval: " + stats.idleMillis + " ms");
+        logMessage("[STATS] ===============================================");
+    }
+
+    private void refreshLiveStats() {
+        liveStatsLabel.setText("<html><center>" +
+                grid.getMetrics().snapshot().summaryLine().replace(" | ", "<br>") + "</center></html>");
+    }
+
+    private void benchmarkPlanners() {
+        if (robot1StartX == -1 || robot1TargetX == -1) {
+            logMessage("[BENCH] Set Robot1 start and target first");
+            return;
+        }
+        PathPlanner planner = new PathPlanner(grid);
+        planner.setUseCache(false);
+        logMessage("[BENCH] Robot1 (" + robot1StartX + "," + robot1StartY + ") → (" +
+                robot1TargetX + "," + robot1TargetY + "), obstacles: " + grid.getBlockedCellCount() +
+                ", " + BENCHMARK_RUNS + " runs per mode");
+        for (PathPlanner.Mode mode : PathPlanner.Mode.values()) {
+            PathPlanner.PlanResult result = null;
+            long totalNanos = 0;
+            for (int i = 0; i < BENCHMARK_RUNS; i++) {
+                result = planner.plan(mode, robot1StartX, robot1StartY, robot1TargetX, robot1TargetY);
+                totalNanos += result.getElapsedNanos();
+            }
+            logMessage(String.format("[BENCH] %-6s path: %-9s expansions: %-4d avg: %.1f µs",
+                    mode, result.isFound() ? result.getLength() + " steps" : "none",
+                    result.getExpansions(), totalNanos / 1000.0 / BENCHMARK_RUNS));
+        }
+
+        // Repeat trip through the shared path cache
+        PathPlanner cachedPlanner = new PathPlanner(grid);
+        cachedPlanner.plan(PathPlanner.Mode.JPS, robot1StartX, robot1StartY, robot1TargetX, robot1TargetY);
+        long cachedNanos = 0;
+        for (int i = 0; i < BENCHMARK_RUNS; i++) {
+            cachedNanos += cachedPlanner.plan(PathPlanner.Mode.JPS, robot1StartX, robot1StartY,
+                    robot1TargetX, robot1TargetY).getElapsedNanos();
+        }
+        PathCache cache = grid.getPathCache();
+        logMessage(String.format("[BENCH] cached JPS avg: %.1f µs (cache: %d routes, %d bytes, %d hits / %d misses)",
+                cachedNanos / 1000.0 / BENCHMARK_RUNS, cache.size(), cache.getUsedBytes(),
+                cache.getHits(), cache.getMisses()));
+    }
+
+    private ConflictBasedSearch.Solution planWithCBS() {
+        java.util.List<ConflictBasedSearch.AgentSpec> agents = java.util.Arrays.asList(
+                new ConflictBasedSearch.AgentSpec("Robot1", robot1StartX, robot1StartY, robot1TargetX, robot1TargetY),
+                new ConflictBasedSearch.AgentSpec("Robot2", robot2StartX, robot2StartY, robot2TargetX, robot2TargetY));
+        ConflictBasedSearch.Solution plan =
+                new ConflictBasedSearch(grid, CBS_SUBOPTIMALITY, CBS_TIME_BUDGET_MS).solve(agents);
+        if (plan == null) {
+            logMessage("[CBS] No plan within " + CBS_TIME_BUDGET_MS + " ms, robots will coordinate at runtime");
+        } else {
+            logMessage(String.format("[CBS] Plan found: makespan %d, bound %.2f%s, %d CT nodes, %.1f ms",
+                    plan.getMakespan(), plan.getSuboptimalityBound(), plan.isOptimal() ? " (optimal)" : "",
+                    plan.getHighLevelExpansions(), plan.getElapsedNanos() / 1_000_000.0));
+        }
+        return plan;
+    }
+
+    // Route planning stage: all robots planned in parallel from one obstacle snapshot
+    private java.util.Map<String, int[]> planFleetRoutes() {
+        PathPlanner.Mode mode = getPlannerMode();
+        if (mode == PathPlanner.Mode.GREEDY || mode == PathPlanner.Mode.FLOW_FIELD) {
+            return java.util.Collections.emptyMap(); // These modes have no routes to precompute
+        }
+        long start = System.nanoTime();
+        java.util.List<FleetPlanner.RouteRequest> requests = java.util.Arrays.asList(
+                new FleetPlanner.RouteRequest("Robot1", robot1StartX, robot1StartY, robot1TargetX, robot1TargetY),
+                new FleetPlanner.RouteRequest("Robot2", robot2StartX, robot2StartY, robot2TargetX, robot2TargetY));
+        java.util.Map<String, int[]> routes = fleetPlanner.planAll(grid.snapshot(), mode, requests);
+        logMessage(String.format("[PLAN] %s routes for %d/%d robots on %d workers in %.2f ms",
+                mode, routes.size(), requests.size(), fleetPlanner.getParallelism(),
+                (System.nanoTime() - start) / 1_000_000.0));
+        return routes;
+    }
+
+    private PathPlanner.Mode getPlannerMode() {
+        return plannerModeBox == null ? PathPlanner.Mode.GREEDY :
+                (PathPlanner.Mode) plannerModeBox.getSelectedItem();
+    }
+
+    // One peripheral container per grid region, each with the RegionAgent that owns the region.
+    // Containers from the previous run are shut down first.
+    private GridPartition deployRegions(Runtime rt) throws jade.wrapper.StaleProxyException {
+        for (AgentContainer old : regionContainers) {
+            try {
+                old.kill();
+            } catch (jade.wrapper.StaleProxyException e) {
+                // Already gone
+            }
+        }
+        regionContainers.clear();
+
+        GridPartition partition = new GridPartition(grid.getRows(), grid.getCols(),
+                Integer.getInteger("partition.regionSize", GridPartition.DEFAULT_REGION_SIZE));
+        for (int region = 0; region < partition.getRegionCount(); region++) {
+            Profile profile = new ProfileImpl();
+            profile.setParameter(Profile.MAIN_HOST, "localhost");
+            profile.setParameter(Profile.MAIN_PORT, "1099");
+            profile.setParameter(Profile.CONTAINER_NAME, partition.containerName(region));
+            AgentContainer container = rt.createAgentContainer(profile);
+            regionContainers.add(container);
+            container.createNewAgent(partition.regionAgentName(region), "RegionAgent",
+                    new Object[]{region, partition, this, grid}).start();
+        }
+        logMessage("[REGION] Deployed " + partition.getRegionCount() + " region containers");
+        return partition;
+    }
+
+    // Container owning the region of (x, y), or the main container when not partitioned
+    private AgentContainer containerFor(GridPartition partition, AgentContainer main, int x, int y) {
+        return partition == null ? main : regionContainers.get(partition.regionOf(x, y));
+    }
+
+    private MutexMode getMutexMode() {
+        return mutexModeBox == null ? MutexMode.RICART_AGRAWALA : (MutexMode) mutexModeBox.getSelectedItem();
     }
 
     private void startSimulation() {
@@ -987,7 +1452,15 @@ public class MainFrame extends JFrame {
                 profile.setParameter(Profile.GUI, "false");
 
                 AgentContainer container = rt.createMainContainer(profile);
+                stopJournal();
                 resetSimulation();
+                startJournal();
+                grid.getMetrics().reset();
+                grid.getTrajectories().clear();
+                grid.resetHeat();
+                GridPartition partition = regionsBox.isSelected() ? deployRegions(rt) : null;
+                ConflictBasedSearch.Solution plan = cbsPlanBox.isSelected() ? planWithCBS() : null;
+                java.util.Map<String, int[]> routes = plan == null ? planFleetRoutes() : java.util.Collections.emptyMap();
 
                 // Create Robot1
                 Object[] robot1Args = {
@@ -1001,10 +1474,17 @@ public class MainFrame extends JFrame {
                         0,
                         0,
                         grid,
-                        this
+                        this,
+                        getPlannerMode(),
+                        plan != null ? plan.getPath("Robot1") : null,
+                        routes.get("Robot1"),
+                        null,
+                        getMutexMode(),
+                        partition
                 };
 
-                AgentController robot1 = container.createNewAgent("Robot1", "RobotAgent", robot1Args);
+                AgentController robot1 = containerFor(partition, container, robot1StartX, robot1StartY)
+                        .createNewAgent("Robot1", "RobotAgent", robot1Args);
 
                 // Create Robot2
                 Object[] robot2Args = {
@@ -1018,12 +1498,23 @@ public class MainFrame extends JFrame {
                         0,
                         0,
                         grid,
-                        this
+                        this,
+                        getPlannerMode(),
+                        plan != null ? plan.getPath("Robot2") : null,
+                        routes.get("Robot2"),
+                        null,
+                        getMutexMode(),
+                        partition
                 };
 
-                AgentController robot2 = container.createNewAgent("Robot2", "RobotAgent", robot2Args);
+                AgentController robot2 = containerFor(partition, container, robot2StartX, robot2StartY)
+                        .createNewAgent("Robot2", "RobotAgent", robot2Args);
 
                 logMessage("[SYSTEM] Starting agents...");
+                grid.getMetrics().markLaunch();
+                if (plan != null) {
+                    grid.startPlanClock();
+                }
                 robot1.start();
                 robot2.start();
 
@@ -1050,6 +1541,7 @@ public class MainFrame extends JFrame {
     }
 
     private void stopJADEContainer() {
+        stopJournal();
         try {
             Runtime rt = Runtime.instance();
             if (rt != null) {
@@ -1141,14 +1633,9 @@ public class MainFrame extends JFrame {
     }
 
     private void resetSimulation() {
-        synchronized(grid) {
-            for (int i = 0; i < 5; i++) {
-                for (int j = 0; j < 5; j++) {
-                    grid.freeCell(i, j);
-                }
-            }
-        }
+        freeRobots(false);
 
+        grid.resetRegionTokens();
         gridPanel.clearSetupPositions();
         updateGrid();
         logMessage("[SYSTEM] Simulation grid cleared");
@@ -1167,6 +1654,30 @@ public class MainFrame extends JFrame {
         });
     }
 
+    // The demo's 5x5 grid, or one over the site layout named by -Dgrid.layout
+    private static Grid openGrid() {
+        String layout = System.getProperty("grid.layout");
+        if (layout != null) {
+            try {
+                return new Grid(MappedObstacleMap.open(java.nio.file.Paths.get(layout)));
+            } catch (java.io.IOException e) {
+                System.err.println("Cannot open layout " + layout + " (" + e.getMessage() + "), using the 5x5 grid");
+            }
+        }
+        return new Grid(5, 5);
+    }
+
+    // Frees every robot's cell (only static robots' if staticOnly), visiting populated chunks only
+    private void freeRobots(boolean staticOnly) {
+        synchronized(grid) {
+            grid.snapshot().forEachRobot((x, y, robot) -> {
+                if (!staticOnly || robot.isStatic()) {
+                    grid.freeCell(x, y);
+                }
+            });
+        }
+    }
+
     public static void main(String[] args) {
         System.setProperty("java.util.logging.config.file", "logging.properties");
 
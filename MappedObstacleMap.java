@@ -0,0 +1,159 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Obstacle layout of a site kept in a memory-mapped file instead of on the heap. Opening it
+// maps the file and reads a 32-byte header, nothing more, so even the largest layouts load at
+// once; the pages come in from the OS page cache on demand and are shared by every process
+// that maps the same file. The grid uses it as the base layer under its own obstacle edits.
+// Checkpoints and journals refer to a layout by file and revision instead of copying its cells.
+//
+// Layout: header (magic, version, rows, cols, blocked count, revision), then one bit per cell,
+// each grid row padded to whole little-endian longs: bit y % 64 of word x * wordsPerRow + y / 64.
+// The blocked count is informational only; nothing is sized from it.
+// A layout has at most Integer.MAX_VALUE cells, the most a Grid can index, so the bits take at
+// most 256 MB. Row padding can still push a narrow layout's file past the 2 GB limit of one
+// MappedByteBuffer, so the file is mapped in 1 GB segments; words are 8-byte aligned and
+// never straddle two segments.
+public final class MappedObstacleMap {
+    private static final int MAGIC = 0x4F425354; // "OBST"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int COUNT_OFFSET = 16;
+    private static final int REVISION_OFFSET = 24; // bumped by every setBlocked that changes a cell
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_BYTES = 1L << SEGMENT_SHIFT;
+
+    private final Path file;
+    private final MappedByteBuffer[] segments;
+    private final int rows;
+    private final int cols;
+    private final int wordsPerRow;
+    private final boolean writable;
+
+    private MappedObstacleMap(Path file, MappedByteBuffer[] segments, int rows, int cols, boolean writable) {
+        this.file = file;
+        this.segments = segments;
+        this.rows = rows;
+        this.cols = cols;
+        this.wordsPerRow = (cols + 63) >>> 6;
+        this.writable = writable;
+    }
+
+    // New all-free layout, mapped read-write so it can be filled with setBlocked
+    public static MappedObstacleMap create(Path file, int rows, int cols) throws IOException {
+        if (rows <= 0 || cols <= 0 || (long) rows * cols > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Layout of " + rows + "x" + cols + " needs 1 to " +
+                    Integer.MAX_VALUE + " cells");
+        }
+        long size = HEADER_BYTES + (long) rows * ((cols + 63) >>> 6) * Long.BYTES;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer[] segments = map(channel, FileChannel.MapMode.READ_WRITE, size);
+            segments[0].putInt(0, MAGIC).putInt(4, VERSION).putInt(8, rows).putInt(12, cols)
+                    .putLong(COUNT_OFFSET, 0).putLong(REVISION_OFFSET, 0);
+            return new MappedObstacleMap(file.toAbsolutePath(), segments, rows, cols, true);
+        }
+    }
+
+    // Existing layout, mapped read-only and shared with any other process mapping it
+    public static MappedObstacleMap open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException("Not an obstacle map: " + file);
+            }
+            MappedByteBuffer[] segments = map(channel, FileChannel.MapMode.READ_ONLY, size);
+            MappedByteBuffer header = segments[0];
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("Not an obstacle map: " + file);
+            }
+            if (header.getInt(4) != VERSION) {
+                throw new IOException("Unsupported obstacle map version " + header.getInt(4));
+            }
+            int rows = header.getInt(8), cols = header.getInt(12);
+            if (rows <= 0 || cols <= 0 || (long) rows * cols > Integer.MAX_VALUE) {
+                throw new IOException("Obstacle map " + file + " is " + rows + "x" + cols + ", needs 1 to " +
+                        Integer.MAX_VALUE + " cells");
+            }
+            long blocked = header.getLong(COUNT_OFFSET);
+            if (blocked < 0 || blocked > (long) rows * cols) {
+                throw new IOException("Obstacle map " + file + " claims " + blocked + " blocked cells");
+            }
+            if (size < HEADER_BYTES + (long) rows * ((cols + 63) >>> 6) * Long.BYTES) {
+                throw new IOException("Obstacle map " + file + " is truncated");
+            }
+            return new MappedObstacleMap(file.toAbsolutePath(), segments, rows, cols, false);
+        }
+    }
+
+    // The mappings stay valid after the channel is closed
+    private static MappedByteBuffer[] map(FileChannel channel, FileChannel.MapMode mode, long size) throws IOException {
+        MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((size + SEGMENT_BYTES - 1) >>> SEGMENT_SHIFT)];
+        for (int i = 0; i < segments.length; i++) {
+            long start = (long) i << SEGMENT_SHIFT;
+            segments[i] = channel.map(mode, start, Math.min(SEGMENT_BYTES, size - start));
+            segments[i].order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return segments;
+    }
+
+    // ============ READS ============
+
+    // No bounds check of its own: callers have already checked the grid limits
+    public boolean isBlocked(int x, int y) {
+        return (word(x, y >>> 6) & (1L << y)) != 0;
+    }
+
+    // Bits for cells y = 64 * wordIndex .. 64 * wordIndex + 63 of row x
+    long word(int x, int wordIndex) {
+        long position = HEADER_BYTES + ((long) x * wordsPerRow + wordIndex) * Long.BYTES;
+        return segments[(int) (position >>> SEGMENT_SHIFT)].getLong((int) (position & (SEGMENT_BYTES - 1)));
+    }
+
+    public long getBlockedCount() {
+        return segments[0].getLong(COUNT_OFFSET);
+    }
+
+    public long getRevision() {
+        return segments[0].getLong(REVISION_OFFSET);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public int getRows() { return rows; }
+    public int getCols() { return cols; }
+    public int getWordsPerRow() { return wordsPerRow; }
+
+    // ============ WRITES ============
+
+    // Only for maps from create(); changes reach the file when the OS writes the pages back,
+    // or at force()
+    public void setBlocked(int x, int y, boolean blocked) {
+        if (!writable) {
+            throw new IllegalStateException("Obstacle map is mapped read-only");
+        }
+        if (x < 0 || x >= rows || y < 0 || y >= cols || isBlocked(x, y) == blocked) {
+            return;
+        }
+        long position = HEADER_BYTES + ((long) x * wordsPerRow + (y >>> 6)) * Long.BYTES;
+        MappedByteBuffer segment = segments[(int) (position >>> SEGMENT_SHIFT)];
+        int offset = (int) (position & (SEGMENT_BYTES - 1));
+        segment.putLong(offset, segment.getLong(offset) ^ (1L << y));
+        segments[0].putLong(COUNT_OFFSET, getBlockedCount() + (blocked ? 1 : -1));
+        segments[0].putLong(REVISION_OFFSET, getRevision() + 1);
+    }
+
+    public void force() {
+        if (writable) {
+            for (MappedByteBuffer segment : segments) {
+                segment.force();
+            }
+        }
+    }
+}
@@ -0,0 +1,5 @@
+// How moving robots agree on who may enter a cell, chosen per run
+public enum MutexMode {
+    RICART_AGRAWALA, // REQUEST/AGREE with the occupant of each contested cell
+    SUZUKI_KASAMI    // one circulating token per grid region; entry is free while the token is held
+}
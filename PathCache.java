@@ -0,0 +1,147 @@
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Bounded LRU cache of planned routes keyed by (start cell, target cell, obstacle epoch).
+// Routes are stored as direction run-lengths, one byte per run, so a straight aisle of any
+// length costs a few bytes. Any obstacle change moves Grid to a new epoch and drops every entry.
+public class PathCache {
+    public static final long DEFAULT_MAX_BYTES = 1L << 20;
+    private static final int ENTRY_OVERHEAD_BYTES = 64; // map node, key, entry object
+    private static final int MAX_RUN = 63; // run length fits in the low 6 bits
+    private static final int[] DX = {-1, 1, 0, 0};
+    private static final int[] DY = {0, 0, -1, 1};
+    private static final byte[] UNREACHABLE = new byte[0];
+
+    private static class Entry {
+        final int startCell;
+        final byte[] runs; // (direction << 6) | length, UNREACHABLE for no route
+
+        Entry(int startCell, byte[] runs) {
+            this.startCell = startCell;
+            this.runs = runs;
+        }
+
+        int bytes() {
+            return ENTRY_OVERHEAD_BYTES + runs.length;
+        }
+    }
+
+    private final long maxBytes;
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long usedBytes = 0;
+    private int epoch = -1;
+    private long hits = 0;
+    private long misses = 0;
+
+    public PathCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    // Returns the cached route, an empty array for a cached "no route", or null on a miss
+    public synchronized int[] get(int startCell, int targetCell, int obstacleEpoch, int cols) {
+        if (obstacleEpoch != epoch) {
+            if (obstacleEpoch < epoch) {
+                misses++; // Reader holds an older snapshot; the cache stays on the newer layout
+                return null;
+            }
+            resetTo(obstacleEpoch);
+        }
+        Entry entry = entries.get(key(startCell, targetCell));
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.runs == UNREACHABLE ? new int[0] : decode(entry, cols);
+    }
+
+    // route may be null when the target is unreachable
+    public synchronized void put(int startCell, int targetCell, int obstacleEpoch, int[] route, int cols) {
+        if (obstacleEpoch != epoch) {
+            if (obstacleEpoch < epoch) return; // Planned against an older layout
+            resetTo(obstacleEpoch);
+        }
+        Entry entry = new Entry(startCell, route == null ? UNREACHABLE : encode(route, cols));
+        Entry previous = entries.put(key(startCell, targetCell), entry);
+        if (previous != null) {
+            usedBytes -= previous.bytes();
+        }
+        usedBytes += entry.bytes();
+
+        // Evict least recently used routes until we are back under the cap
+        java.util.Iterator<Map.Entry<Long, Entry>> it = entries.entrySet().iterator();
+        while (usedBytes > maxBytes && it.hasNext()) {
+            usedBytes -= it.next().getValue().bytes();
+            it.remove();
+        }
+    }
+
+    public synchronized int size() { return entries.size(); }
+    public synchronized long getUsedBytes() { return usedBytes; }
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+
+    // ============ ENCODING ============
+
+    private static byte[] encode(int[] route, int cols) {
+        byte[] runs = new byte[Math.max(1, route.length)];
+        int count = 0;
+        int runDir = -1, runLength = 0;
+        for (int i = 1; i < route.length; i++) {
+            int dir = direction(route[i - 1], route[i], cols);
+            if (dir == runDir && runLength < MAX_RUN) {
+                runLength++;
+                continue;
+            }
+            if (runDir >= 0) {
+                runs[count++] = (byte) ((runDir << 6) | runLength);
+            }
+            runDir = dir;
+            runLength = 1;
+        }
+        if (runDir >= 0) {
+            runs[count++] = (byte) ((runDir << 6) | runLength);
+        }
+        return Arrays.copyOf(runs, count);
+    }
+
+    private static int[] decode(Entry entry, int cols) {
+        int length = 1;
+        for (byte run : entry.runs) {
+            length += run & MAX_RUN;
+        }
+        int[] route = new int[length];
+        int x = entry.startCell / cols, y = entry.startCell % cols;
+        int k = 0;
+        route[k++] = entry.startCell;
+        for (byte run : entry.runs) {
+            int dir = (run >> 6) & 3;
+            for (int i = run & MAX_RUN; i > 0; i--) {
+                x += DX[dir];
+                y += DY[dir];
+                route[k++] = x * cols + y;
+            }
+        }
+        return route;
+    }
+
+    private static int direction(int from, int to, int cols) {
+        int dx = to / cols - from / cols;
+        int dy = to % cols - from % cols;
+        for (int d = 0; d < 4; d++) {
+            if (DX[d] == dx && DY[d] == dy) return d;
+        }
+        throw new IllegalArgumentException("Route cells " + from + " -> " + to + " are not adjacent");
+    }
+
+    private void resetTo(int obstacleEpoch) {
+        entries.clear();
+        usedBytes = 0;
+        epoch = obstacleEpoch;
+    }
+
+    private static long key(int startCell, int targetCell) {
+        return ((long) startCell << 32) | (targetCell & 0xFFFFFFFFL);
+    }
+}
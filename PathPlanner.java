@@ -0,0 +1,397 @@
+import java.util.Arrays;
+
+// Grid route planner used by robots that do not rely on the greedy calculateNextMove step.
+// Routes are returned as cell indices (x * cols + y), start cell first, target cell last.
+public class PathPlanner {
+    public enum Mode { GREEDY, ASTAR, JPS, FLOW_FIELD }
+
+    // Result of a single planning call, kept for benchmarking the different modes
+    public static class PlanResult {
+        private final int[] path; // null when the target is unreachable
+        private final int expansions; // nodes taken off the open list (or greedy steps)
+        private final long elapsedNanos;
+
+        PlanResult(int[] path, int expansions, long elapsedNanos) {
+            this.path = path;
+            this.expansions = expansions;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public int[] getPath() { return path; }
+        public boolean isFound() { return path != null; }
+        public int getLength() { return path == null ? 0 : path.length - 1; }
+        public int getExpansions() { return expansions; }
+        public long getElapsedNanos() { return elapsedNanos; }
+    }
+
+    private final Grid grid;
+    private final GridSnapshot snapshot; // when set, obstacles are read from it instead of the live grid
+    private final int rows;
+    private final int cols;
+    private int expansions;
+    private boolean useCache = true;
+
+    public PathPlanner(Grid grid) {
+        this.grid = grid;
+        this.snapshot = null;
+        this.rows = grid.getRows();
+        this.cols = grid.getCols();
+    }
+
+    // Planner for worker threads: reads only the snapshot (FLOW_FIELD needs the live grid)
+    public PathPlanner(GridSnapshot snapshot) {
+        this.grid = null;
+        this.snapshot = snapshot;
+        this.rows = snapshot.getRows();
+        this.cols = snapshot.getCols();
+    }
+
+    public PlanResult plan(Mode mode, int startX, int startY, int targetX, int targetY) {
+        long start = System.nanoTime();
+        expansions = 0;
+        int[] path;
+        boolean cacheable = useCache && (mode == Mode.ASTAR || mode == Mode.JPS); // both return shortest routes
+        PathCache cache = snapshot != null ? snapshot.getPathCache() : grid.getPathCache();
+        int epoch = snapshot != null ? snapshot.getObstacleEpoch() : grid.getObstacleEpoch();
+        int startCell = index(startX, startY), targetCell = index(targetX, targetY);
+        if (cacheable) {
+            int[] cached = cache.get(startCell, targetCell, epoch, cols);
+            if (cached != null) {
+                return new PlanResult(cached.length == 0 ? null : cached, 0, System.nanoTime() - start);
+            }
+        }
+
+        if (isBlocked(startX, startY) || isBlocked(targetX, targetY)) {
+            path = null;
+        } else {
+            switch (mode) {
+                case ASTAR:
+                    path = aStar(startX, startY, targetX, targetY);
+                    break;
+                case JPS:
+                    path = jumpPointSearch(startX, startY, targetX, targetY);
+                    break;
+                case FLOW_FIELD:
+                    path = grid != null ? followFlowField(startX, startY, targetX, targetY)
+                            : aStar(startX, startY, targetX, targetY);
+                    break;
+                default:
+                    path = greedyWalk(startX, startY, targetX, targetY);
+                    break;
+            }
+        }
+        if (cacheable) {
+            cache.put(startCell, targetCell, epoch, path, cols);
+        }
+        return new PlanResult(path, expansions, System.nanoTime() - start);
+    }
+
+    // Benchmarks turn the shared path cache off to measure the search itself
+    public void setUseCache(boolean useCache) {
+        this.useCache = useCache;
+    }
+
+    // ============ GREEDY (mirrors RobotAgent.calculateNextMove, obstacles only) ============
+
+    private int[] greedyWalk(int sx, int sy, int tx, int ty) {
+        int maxSteps = rows * cols;
+        int[] path = new int[maxSteps + 1];
+        int length = 0;
+        int x = sx, y = sy;
+        int prev = -1;
+        path[length++] = index(x, y);
+
+        while ((x != tx || y != ty) && length <= maxSteps) {
+            expansions++;
+            int next = -1;
+            int dx = tx - x;
+            int dy = ty - y;
+            if (dx != 0 && !isBlocked(x + Integer.signum(dx), y)) {
+                next = index(x + Integer.signum(dx), y);
+            } else if (dy != 0 && !isBlocked(x, y + Integer.signum(dy))) {
+                next = index(x, y + Integer.signum(dy));
+            } else {
+                // Same fallback as findAdjacentMoveTowardTarget: any free neighbour, closer ones first
+                int currentDist = Math.abs(dx) + Math.abs(dy);
+                int neutral = -1;
+                for (int d = 0; d < 4; d++) {
+                    int nx = x + DX[d], ny = y + DY[d];
+                    if (isBlocked(nx, ny) || index(nx, ny) == prev) continue;
+                    int dist = Math.abs(tx - nx) + Math.abs(ty - ny);
+                    if (dist < currentDist) {
+                        next = index(nx, ny);
+                        break;
+                    } else if (neutral == -1) {
+                        neutral = index(nx, ny);
+                    }
+                }
+                if (next == -1) next = neutral;
+            }
+            if (next == -1) {
+                return null; // Greedy walk is stuck
+            }
+            prev = index(x, y);
+            x = next / cols;
+            y = next % cols;
+            path[length++] = next;
+        }
+        return (x == tx && y == ty) ? Arrays.copyOf(path, length) : null;
+    }
+
+    // ============ FLOW FIELD (shared per-target field kept by Grid) ============
+
+    private int[] followFlowField(int sx, int sy, int tx, int ty) {
+        FlowField field = grid.getFlowField(tx, ty);
+        int maxSteps = rows * cols;
+        int[] path = new int[maxSteps + 1];
+        int length = 0;
+        int x = sx, y = sy;
+        path[length++] = index(x, y);
+        while ((x != tx || y != ty) && length <= maxSteps) {
+            expansions++;
+            int[] next = field.nextCell(x, y);
+            if (next == null) {
+                return null;
+            }
+            x = next[0];
+            y = next[1];
+            path[length++] = index(x, y);
+        }
+        return (x == tx && y == ty) ? Arrays.copyOf(path, length) : null;
+    }
+
+    // ============ A* (4-connected, Manhattan heuristic) ============
+
+    private static final int[] DX = {-1, 1, 0, 0};
+    private static final int[] DY = {0, 0, -1, 1};
+
+    private int[] aStar(int sx, int sy, int tx, int ty) {
+        int size = rows * cols;
+        int[] g = new int[size];
+        int[] parent = new int[size];
+        boolean[] closed = new boolean[size];
+        Arrays.fill(g, Integer.MAX_VALUE);
+        LongMinHeap open = new LongMinHeap(64);
+
+        int startIdx = index(sx, sy);
+        int targetIdx = index(tx, ty);
+        g[startIdx] = 0;
+        parent[startIdx] = -1;
+        open.push(pack(heuristic(sx, sy, tx, ty), startIdx));
+
+        while (!open.isEmpty()) {
+            int current = (int) open.pop();
+            if (closed[current]) continue;
+            closed[current] = true;
+            expansions++;
+            if (current == targetIdx) {
+                return buildPath(parent, targetIdx);
+            }
+            int x = current / cols, y = current % cols;
+            for (int d = 0; d < 4; d++) {
+                int nx = x + DX[d], ny = y + DY[d];
+                if (isBlocked(nx, ny)) continue;
+                int n = index(nx, ny);
+                int ng = g[current] + 1;
+                if (!closed[n] && ng < g[n]) {
+                    g[n] = ng;
+                    parent[n] = current;
+                    open.push(pack(ng + heuristic(nx, ny, tx, ty), n));
+                }
+            }
+        }
+        return null;
+    }
+
+    // ============ JUMP POINT SEARCH (4-connected) ============
+    // Moves along x prune to the straight successor plus both y neighbours; moves along y
+    // additionally scan x in both directions, so only jump points ever reach the open list.
+
+    private int[] jumpPointSearch(int sx, int sy, int tx, int ty) {
+        int size = rows * cols;
+        int[] g = new int[size];
+        int[] parent = new int[size];
+        boolean[] closed = new boolean[size];
+        Arrays.fill(g, Integer.MAX_VALUE);
+        LongMinHeap open = new LongMinHeap(16);
+
+        int startIdx = index(sx, sy);
+        int targetIdx = index(tx, ty);
+        g[startIdx] = 0;
+        parent[startIdx] = -1;
+        open.push(pack(heuristic(sx, sy, tx, ty), startIdx));
+
+        int[] dirs = new int[8];
+        while (!open.isEmpty()) {
+            int current = (int) open.pop();
+            if (closed[current]) continue;
+            closed[current] = true;
+            expansions++;
+            if (current == targetIdx) {
+                return expandJumpPath(parent, targetIdx);
+            }
+            int x = current / cols, y = current % cols;
+            int count = prunedDirections(current, parent[current], dirs);
+            for (int i = 0; i < count; i += 2) {
+                int jumpPoint = jump(x + dirs[i], y + dirs[i + 1], dirs[i], dirs[i + 1], tx, ty);
+                if (jumpPoint < 0 || closed[jumpPoint]) continue;
+                int jx = jumpPoint / cols, jy = jumpPoint % cols;
+                int ng = g[current] + Math.abs(jx - x) + Math.abs(jy - y);
+                if (ng < g[jumpPoint]) {
+                    g[jumpPoint] = ng;
+                    parent[jumpPoint] = current;
+                    open.push(pack(ng + heuristic(jx, jy, tx, ty), jumpPoint));
+                }
+            }
+        }
+        return null;
+    }
+
+    // Writes (dx, dy) pairs into dirs and returns the number of ints written
+    private int prunedDirections(int node, int parentNode, int[] dirs) {
+        int x = node / cols, y = node % cols;
+        int count = 0;
+        if (parentNode < 0) {
+            for (int d = 0; d < 4; d++) {
+                if (!isBlocked(x + DX[d], y + DY[d])) {
+                    dirs[count++] = DX[d];
+                    dirs[count++] = DY[d];
+                }
+            }
+            return count;
+        }
+        int px = parentNode / cols, py = parentNode % cols;
+        int dx = Integer.signum(x - px);
+        int dy = Integer.signum(y - py);
+        if (dx != 0) {
+            if (!isBlocked(x + dx, y)) { dirs[count++] = dx; dirs[count++] = 0; }
+            if (!isBlocked(x, y - 1)) { dirs[count++] = 0; dirs[count++] = -1; }
+            if (!isBlocked(x, y + 1)) { dirs[count++] = 0; dirs[count++] = 1; }
+        } else {
+            if (!isBlocked(x, y + dy)) { dirs[count++] = 0; dirs[count++] = dy; }
+            if (!isBlocked(x - 1, y)) { dirs[count++] = -1; dirs[count++] = 0; }
+            if (!isBlocked(x + 1, y)) { dirs[count++] = 1; dirs[count++] = 0; }
+        }
+        return count;
+    }
+
+    private int jump(int x, int y, int dx, int dy, int tx, int ty) {
+        while (true) {
+            if (isBlocked(x, y)) return -1;
+            if (x == tx && y == ty) return index(x, y);
+            if (dx != 0) {
+                // Forced neighbour: side cell open here but closed one step back
+                if ((!isBlocked(x, y - 1) && isBlocked(x - dx, y - 1)) ||
+                        (!isBlocked(x, y + 1) && isBlocked(x - dx, y + 1))) {
+                    return index(x, y);
+                }
+            } else {
+                if ((!isBlocked(x - 1, y) && isBlocked(x - 1, y - dy)) ||
+                        (!isBlocked(x + 1, y) && isBlocked(x + 1, y - dy))) {
+                    return index(x, y);
+                }
+                // Moving along y, any jump point reachable along x makes this cell a jump point
+                if (jump(x + 1, y, 1, 0, tx, ty) >= 0 || jump(x - 1, y, -1, 0, tx, ty) >= 0) {
+                    return index(x, y);
+                }
+            }
+            x += dx;
+            y += dy;
+        }
+    }
+
+    // Jump points are joined by straight segments; fill in every cell between them
+    private int[] expandJumpPath(int[] parent, int targetIdx) {
+        int[] jumpPoints = buildPath(parent, targetIdx);
+        int length = 1;
+        for (int i = 1; i < jumpPoints.length; i++) {
+            length += Math.abs(jumpPoints[i] / cols - jumpPoints[i - 1] / cols) +
+                    Math.abs(jumpPoints[i] % cols - jumpPoints[i - 1] % cols);
+        }
+        int[] path = new int[length];
+        int k = 0;
+        path[k++] = jumpPoints[0];
+        for (int i = 1; i < jumpPoints.length; i++) {
+            int x = jumpPoints[i - 1] / cols, y = jumpPoints[i - 1] % cols;
+            int ex = jumpPoints[i] / cols, ey = jumpPoints[i] % cols;
+            int dx = Integer.signum(ex - x), dy = Integer.signum(ey - y);
+            while (x != ex || y != ey) {
+                x += dx;
+                y += dy;
+                path[k++] = index(x, y);
+            }
+        }
+        return path;
+    }
+
+    // ============ HELPERS ============
+
+    private int[] buildPath(int[] parent, int targetIdx) {
+        int length = 0;
+        for (int n = targetIdx; n != -1; n = parent[n]) length++;
+        int[] path = new int[length];
+        for (int n = targetIdx, i = length - 1; n != -1; n = parent[n], i--) {
+            path[i] = n;
+        }
+        return path;
+    }
+
+    private boolean isBlocked(int x, int y) {
+        // Out of bounds counts as blocked
+        return snapshot != null ? snapshot.isCellBlocked(x, y) : grid.isCellBlocked(x, y);
+    }
+
+    private int index(int x, int y) {
+        return x * cols + y;
+    }
+
+    private static int heuristic(int x, int y, int tx, int ty) {
+        return Math.abs(x - tx) + Math.abs(y - ty);
+    }
+
+    private static long pack(int priority, int cell) {
+        return ((long) priority << 32) | cell;
+    }
+
+    // Binary min-heap of packed (priority, cell) longs, avoids boxing on the open list
+    static class LongMinHeap {
+        private long[] heap;
+        private int size;
+
+        LongMinHeap(int capacity) {
+            heap = new long[capacity];
+        }
+
+        boolean isEmpty() { return size == 0; }
+
+        void push(long value) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int p = (i - 1) >>> 1;
+                if (heap[p] <= value) break;
+                heap[i] = heap[p];
+                i = p;
+            }
+            heap[i] = value;
+        }
+
+        long pop() {
+            long top = heap[0];
+            long last = heap[--size];
+            int i = 0;
+            while (true) {
+                int c = 2 * i + 1;
+                if (c >= size) break;
+                if (c + 1 < size && heap[c + 1] < heap[c]) c++;
+                if (last <= heap[c]) break;
+                heap[i] = heap[c];
+                i = c;
+            }
+            heap[i] = last;
+            return top;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Deferred cell requests of one robot, kept in a ring buffer of primitive columns instead of
+// one queued ACLMessage per request. Requesters are interned to small indices, so a request
+// costs four ints. On a release every queued request that does not compete with an earlier
+// one for the same cell is granted in one pass, in Ricart-Agrawala order (priority, Lamport
+// timestamp, robot id); the losers stay queued for the next release.
+// Used from the owning agent's thread only; size() may be read from the GUI.
+public class PendingRequestQueue implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    // Receives one grant; called in grant order
+    public interface Grantee {
+        void grant(String requester, int cell);
+    }
+
+    private int[] requesters = new int[INITIAL_CAPACITY];
+    private int[] timestamps = new int[INITIAL_CAPACITY];
+    private int[] priorities = new int[INITIAL_CAPACITY];
+    private int[] cells = new int[INITIAL_CAPACITY];
+    private int head = 0;
+    private volatile int size = 0;
+    private final List<String> names = new ArrayList<>(); // requester index -> robot id
+    private final Map<String, Integer> indices = new HashMap<>();
+
+    public void add(String requester, int timestamp, int priority, int cell) {
+        if (size == requesters.length) {
+            grow();
+        }
+        int slot = (head + size) % requesters.length;
+        requesters[slot] = intern(requester);
+        timestamps[slot] = timestamp;
+        priorities[slot] = priority;
+        cells[slot] = cell;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Accessors by position in arrival order, 0 = oldest
+    public String requester(int i) {
+        return names.get(requesters[slot(i)]);
+    }
+
+    public int timestamp(int i) {
+        return timestamps[slot(i)];
+    }
+
+    public int priority(int i) {
+        return priorities[slot(i)];
+    }
+
+    public int cell(int i) {
+        return cells[slot(i)];
+    }
+
+    // Grants the first request for each distinct cell, best first, removes them from the queue
+    // and returns how many were granted
+    public int grantNonConflicting(Grantee grantee) {
+        int n = size;
+        if (n == 0) {
+            return 0;
+        }
+        // Insertion sort of positions; deferred queues are a handful of entries long
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            int j = i;
+            while (j > 0 && precedes(i, order[j - 1])) {
+                order[j] = order[j - 1];
+                j--;
+            }
+            order[j] = i;
+        }
+        boolean[] granted = new boolean[n];
+        int[] grantedCells = new int[n];
+        int count = 0;
+        for (int k = 0; k < n; k++) {
+            int i = order[k];
+            int cell = cell(i);
+            boolean conflict = false;
+            for (int c = 0; c < count && !conflict; c++) {
+                conflict = grantedCells[c] == cell;
+            }
+            if (!conflict) {
+                grantedCells[count++] = cell;
+                granted[i] = true;
+            }
+        }
+        for (int k = 0; k < n; k++) {
+            if (granted[order[k]]) {
+                grantee.grant(requester(order[k]), cell(order[k]));
+            }
+        }
+        compact(granted);
+        return count;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    // ============ INTERNALS ============
+
+    private boolean precedes(int a, int b) {
+        return RobotPriority.precedes(priority(a), timestamp(a), requester(a),
+                priority(b), timestamp(b), requester(b));
+    }
+
+    // Drops the granted positions, keeping the rest in arrival order
+    private void compact(boolean[] removed) {
+        int n = size;
+        int kept = 0;
+        for (int i = 0; i < n; i++) {
+            if (!removed[i]) {
+                int from = slot(i);
+                int to = slot(kept);
+                requesters[to] = requesters[from];
+                timestamps[to] = timestamps[from];
+                priorities[to] = priorities[from];
+                cells[to] = cells[from];
+                kept++;
+            }
+        }
+        size = kept;
+    }
+
+    private int slot(int i) {
+        return (head + i) % requesters.length;
+    }
+
+    private int intern(String requester) {
+        Integer index = indices.get(requester);
+        if (index == null) {
+            index = names.size();
+            names.add(requester);
+            indices.put(requester, index);
+        }
+        return index;
+    }
+
+    private void grow() {
+        int capacity = requesters.length * 2;
+        int[] r = new int[capacity], t = new int[capacity], p = new int[capacity], c = new int[capacity];
+        for (int i = 0; i < size; i++) {
+            int from = slot(i);
+            r[i] = requesters[from];
+            t[i] = timestamps[from];
+            p[i] = priorities[from];
+            c[i] = cells[from];
+        }
+        requesters = r;
+        timestamps = t;
+        priorities = p;
+        cells = c;
+        head = 0;
+    }
+}
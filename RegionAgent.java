@@ -0,0 +1,114 @@
+import jade.core.AID;
+import jade.core.Agent;
+import jade.core.behaviours.CyclicBehaviour;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Owner of one grid region, living in that region's container. Robots report when they enter
+// the region; the owner takes them over, tells the previous region's owner to let go and
+// confirms the handoff to the robot.
+//
+// Messages (conversation HANDOFF_CONVERSATION):
+//   robot  → owner     INFORM  "ENTER:<robotId>:<fromRegion>"  (fromRegion -1 on spawn)
+//   owner  → previous  INFORM  "LEAVE:<robotId>:<toRegion>"
+//   owner  → robot     CONFIRM "HANDOFF:<region>:<containerName>"
+public class RegionAgent extends Agent {
+    private static final long serialVersionUID = 1L;
+
+    public static final String HANDOFF_CONVERSATION = "region-handoff";
+
+    private int region;
+    private GridPartition partition;
+    private MainFrame mainFrame;
+    private Grid grid; // for its event journal; null when run without one
+    private final Set<String> residents = ConcurrentHashMap.newKeySet();
+
+    @Override
+    protected void setup() {
+        Object[] args = getArguments();
+        this.region = (Integer) args[0];
+        this.partition = (GridPartition) args[1];
+        this.mainFrame = args.length > 2 ? (MainFrame) args[2] : null;
+        this.grid = args.length > 3 ? (Grid) args[3] : null;
+        log("owns cells " + partition.describe(region));
+        addBehaviour(new HandoffBehaviour());
+    }
+
+    private class HandoffBehaviour extends CyclicBehaviour {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public void action() {
+            ACLMessage msg = receiveMessage(MessageTemplate.and(
+                    MessageTemplate.MatchPerformative(ACLMessage.INFORM),
+                    MessageTemplate.MatchConversationId(HANDOFF_CONVERSATION)));
+            if (msg == null) {
+                block();
+                return;
+            }
+            String[] parts = msg.getContent().split(":");
+            String robotId = parts[1];
+            int other = Integer.parseInt(parts[2]);
+            if (parts[0].equals("ENTER")) {
+                residents.add(robotId);
+                if (other >= 0 && other != region) {
+                    ACLMessage leave = new ACLMessage(ACLMessage.INFORM);
+                    leave.setConversationId(HANDOFF_CONVERSATION);
+                    leave.addReceiver(new AID(partition.regionAgentName(other), AID.ISLOCALNAME));
+                    leave.setContent("LEAVE:" + robotId + ":" + region);
+                    leave.setSender(getAID());
+                    sendMessage(leave);
+                }
+                ACLMessage confirm = msg.createReply();
+                confirm.setPerformative(ACLMessage.CONFIRM);
+                confirm.setContent("HANDOFF:" + region + ":" + partition.containerName(region));
+                sendMessage(confirm);
+                log(robotId + " handed over" + (other >= 0 ? " from region " + other : "") +
+                        " (" + residents.size() + " resident)");
+            } else if (parts[0].equals("LEAVE")) {
+                residents.remove(robotId);
+            }
+        }
+    }
+
+    // ============ MESSAGING ============
+
+    // Every send and receive goes through here so the journal records the handoffs too
+    private void sendMessage(ACLMessage msg) {
+        EventJournal journal = grid != null ? grid.getJournal() : null;
+        if (journal != null) {
+            StringBuilder receivers = new StringBuilder();
+            Iterator<?> it = msg.getAllReceiver();
+            while (it != null && it.hasNext()) {
+                if (receivers.length() > 0) receivers.append(',');
+                receivers.append(((AID) it.next()).getLocalName());
+            }
+            journal.message(EventJournal.SEND, getLocalName(), msg.getPerformative(), receivers.toString(),
+                    msg.getContent(), msg.getConversationId());
+        }
+        send(msg);
+    }
+
+    private ACLMessage receiveMessage(MessageTemplate template) {
+        ACLMessage msg = receive(template);
+        EventJournal journal = grid != null ? grid.getJournal() : null;
+        if (msg != null && journal != null) {
+            journal.message(EventJournal.RECEIVE, getLocalName(), msg.getPerformative(),
+                    msg.getSender() != null ? msg.getSender().getLocalName() : null,
+                    msg.getContent(), msg.getConversationId());
+        }
+        return msg;
+    }
+
+    public int getRegion() { return region; }
+    public int getResidentCount() { return residents.size(); }
+
+    private void log(String message) {
+        if (mainFrame != null) {
+            mainFrame.logMessage("[REGION " + region + "] " + message);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 import jade.core.Agent;
 import jade.core.behaviours.CyclicBehaviour;
+import jade.core.behaviours.WakerBehaviour;
 import jade.lang.acl.ACLMessage;
 import jade.lang.acl.MessageTemplate;
 import java.awt.*;
@@ -9,35 +10,55 @@ import java.util.concurrent.*;
 
 public class RobotAgent extends Agent {
     private String robotId;
-    private int currentX, currentY, targetX, targetY;
+    // Position, clock and counters are volatile so monitors can read them off the agent thread
+    private volatile int currentX, currentY;
+    private int targetX, targetY;
     private Color color;
     private boolean isMoving = true;
     private boolean isStatic = false; // New: for blocking robots
     private int requestsNeededToMove = 3; // Number of requests needed for static robots to move
-    private int requestCount = 0; // Count of received requests
+    private volatile int requestCount = 0; // Count of received requests
     private int originalX, originalY; // Original position for static robots to return to
     private boolean temporarilyMoving = false; // Whether static robot is temporarily moving
     private int tempTargetX, tempTargetY; // Temporary target for static robot movement
+    private int[] parkingPath; // BFS path to the parking cell (cell indices, current cell excluded)
+    private int parkingStep = 0;
+    private final Set<String> parkedFor = ConcurrentHashMap.newKeySet(); // requesters yet to pass us
+    // Moving robots: static robots we asked to make way, by id, with the cell they vacate and
+    // whether we have been in it; we report PASSED once we are through or done
+    private final Map<String, int[]> passingStatic = new ConcurrentHashMap<>();
 
     // Ricart-Agrawala variables
-    private int logicalClock = 0;
-    private boolean requesting = false;
+    private volatile int logicalClock = 0;
+    private volatile boolean requesting = false;
     private int requestedCellX = -1, requestedCellY = -1;
     private int requestTimestamp = 0;
     private Map<String, Boolean> okReceived = new ConcurrentHashMap<>();
-    private Queue<ACLMessage> pendingRequests = new ConcurrentLinkedQueue<>();
+    private final PendingRequestQueue pendingRequests = new PendingRequestQueue(); // deferred until a RELEASE
 
     // Movement control
     private boolean hasPendingRequest = false;
     private boolean canMoveThisCycle = true;
-    private final Object movementLock = new Object();
+    private transient Object movementLock = new Object();
+    // All times and intervals below are simulated milliseconds on the grid's SimulationClock
     private long lastMoveTime = 0;
     private static final long MOVE_INTERVAL = 800; // Reduced from 1000 for faster testing
+    // Adaptive pacing (timed CBS plans step on the shared MOVE_INTERVAL plan tick instead): after
+    // progress move again after the short minimum, under contention back off exponentially with jitter
+    private static final long MIN_MOVE_INTERVAL = Long.getLong("move.minIntervalMs", 100);
+    private final Backoff backoff = new Backoff(Long.getLong("move.backoffBaseMs", 200),
+            Long.getLong("move.maxBackoffMs", 3200));
+    private long nextMoveDelay = MIN_MOVE_INTERVAL;
+
+    // Request priority (see RobotPriority)
+    private int urgency = 0; // task urgency from the scenario, 0 = normal
+    private int requestPriority = 0; // priority of our outstanding request
+    private long lastProgressTime = 0; // last move, for the waiting-age term
 
     // Deadlock detection
-    private int consecutiveBlocks = 0;
+    private volatile int consecutiveBlocks = 0;
     private static final int MAX_BLOCKS_BEFORE_DEADLOCK = 3;
-    private boolean inDeadlock = false;
+    private volatile boolean inDeadlock = false;
     private long deadlockStartTime = 0;
     private static final long DEADLOCK_TIMEOUT = 5000; // 5 seconds
 
@@ -47,9 +68,55 @@ public class RobotAgent extends Agent {
     private long lastRequestTime = 0;
     private static final long RETRY_INTERVAL = 500; // Retry every 500ms
 
-    // Shared resources
-    private Grid grid;
-    private MainFrame mainFrame;
+    // Route planning (GREEDY keeps the original step-by-step calculateNextMove)
+    private PathPlanner.Mode planningMode = PathPlanner.Mode.GREEDY;
+    private transient PathPlanner planner; // rebuilt on demand
+    private int[] plannedRoute; // cell indices (x * cols + y) from start to target
+    private int routeIndex = 0;
+
+    // Precomputed collision-free plan (one cell per MOVE_INTERVAL tick of the grid's plan clock),
+    // dropped when we drift
+    private int[] timedRoute;
+    private int timedStep = 0;
+
+    // Metrics
+    private long requestSentNanos = 0; // when the current REQUEST was first sent
+    private long requestStartNanos = 0; // same, but kept until the move for flight recorder events
+    private long lastIdleSample = 0;
+    private boolean hasMoved = false;
+
+    // Cell leases: grants arrive here instead of through repeated REQUESTs
+    private transient Queue<Integer> leaseGrants;
+    private long lastHeartbeat = 0;
+    private final Set<String> distinctRequesters = new HashSet<>(); // static robots count each requester once
+
+    // Path segments: the next cells of our way are reserved in one step and then walked without
+    // asking again; each one is released by freeCell as we leave it
+    private static final int SEGMENT_LENGTH = Integer.getInteger("segment.length", 4); // 1 = single cells
+    private final ArrayDeque<Integer> reservedCells = new ArrayDeque<>(); // cell indices still ahead
+
+    // Region tokens (MutexMode.SUZUKI_KASAMI): free cells are entered only while holding the
+    // token of their region
+    private MutexMode mutexMode = MutexMode.RICART_AGRAWALA;
+    private SuzukiKasamiMutex tokenMutex;
+    private int tokenWantedX = -1, tokenWantedY = -1; // cell to enter once the region token arrives
+
+    // Region containers: the RegionAgent of the region we stand in owns us; null partition
+    // means the whole grid lives in one container
+    private GridPartition partition;
+    private int region = -1; // region we last reported entering
+    private String regionContainer; // container of the region that confirmed the handoff
+    private String migrateTo; // container to move to once no request is in flight
+
+    // Checkpointing
+    private AdaptiveStaticBehaviour adaptiveBehaviour;
+    private RetryBehaviour retryBehaviour;
+    private transient SimulationCheckpoint lastCheckpoint; // last checkpoint this agent contributed to
+
+    // Shared resources: not carried along when migrating, looked up again by simulation id
+    private transient Grid grid;
+    private transient MainFrame mainFrame;
+    private int simulationId;
 
     @Override
     protected void setup() {
@@ -66,17 +133,58 @@ public class RobotAgent extends Agent {
             this.originalY = (Integer) args[8]; // Original Y position
             this.grid = (Grid) args[9];
             this.mainFrame = (MainFrame) args[10];
+            if (args.length > 11 && args[11] != null) {
+                this.planningMode = (PathPlanner.Mode) args[11]; // Optional: route planning mode
+            }
+            if (args.length > 12 && args[12] != null) {
+                this.timedRoute = (int[]) args[12]; // Optional: timed path from ConflictBasedSearch
+            }
+            if (args.length > 13 && args[13] != null) {
+                this.plannedRoute = (int[]) args[13]; // Optional: initial route from FleetPlanner
+            }
             this.color = isStatic ? Color.GRAY : (robotId.equals("Robot1") ? Color.RED : Color.BLUE);
         }
+        SimulationCheckpoint.RobotState restored = null;
+        if (args != null && args.length > 14 && args[14] != null) {
+            restored = (SimulationCheckpoint.RobotState) args[14]; // Optional: resume from a checkpoint
+            restoreState(restored);
+        }
+        if (args != null && args.length > 15 && args[15] != null) {
+            this.mutexMode = (MutexMode) args[15]; // Optional: cell access protocol
+        }
+        if (mutexMode == MutexMode.SUZUKI_KASAMI && !isStatic) {
+            tokenMutex = new SuzukiKasamiMutex(robotId, grid, new TokenTransport(),
+                    Integer.getInteger("mutex.regionSize", SuzukiKasamiMutex.DEFAULT_REGION_SIZE));
+            grid.joinTokenPeers(this);
+        }
+        if (args != null && args.length > 16 && args[16] != null) {
+            this.partition = (GridPartition) args[16]; // Optional: grid split across region containers
+        }
+        if (args != null && args.length > 17 && args[17] != null) {
+            this.urgency = (Integer) args[17]; // Optional: task urgency for request priority
+        }
+
+        simulationId = SimulationRegistry.register(grid, mainFrame);
+        lastProgressTime = now();
+
+        if (grid.getJournal() != null) {
+            grid.getJournal().spawn(robotId, currentX, currentY, targetX, targetY, isStatic, color.getRGB());
+        }
 
         // Initial occupation
         synchronized(grid) {
             grid.occupyCell(currentX, currentY, this);
+            grid.getTrajectories().record(robotId, color.getRGB(), currentX * grid.getCols() + currentY);
             if (mainFrame != null) {
                 mainFrame.updateGrid();
             }
         }
 
+        FleetMonitor.getInstance().registerRobot(this);
+        setEnabledO2ACommunication(true, 0);
+        leaseGrants = grid.getLeases().register(robotId, this::wake);
+        checkRegionHandoff();
+
         if (isStatic) {
             log("ADAPTIVE STATIC AGENT at (" + currentX + "," + currentY + ") - Needs " +
                     requestsNeededToMove + " requests to move");
@@ -84,35 +192,61 @@ public class RobotAgent extends Agent {
 
             // Add behaviors for static robots
             addBehaviour(new MessageHandlingBehaviour());
-            addBehaviour(new AdaptiveStaticBehaviour());
+            adaptiveBehaviour = new AdaptiveStaticBehaviour();
+            if (restored != null) {
+                adaptiveBehaviour.moveState = restored.moveState;
+                adaptiveBehaviour.waitStartTime = now(); // Restart any wait at temp
+            }
+            addBehaviour(adaptiveBehaviour);
         } else {
             log("Agent started at (" + currentX + "," + currentY + ") → Target: (" + targetX + "," + targetY + ")");
 
             // Add behaviours only for moving robots
             addBehaviour(new MessageHandlingBehaviour());
             addBehaviour(new MovementBehaviour());
-            addBehaviour(new DeadlockDetectionBehaviour());
-            addBehaviour(new RetryBehaviour()); // New: retry behaviour
+            retryBehaviour = new RetryBehaviour();
+            addBehaviour(retryBehaviour); // New: retry behaviour
+        }
+    }
+
+    @Override
+    protected void takeDown() {
+        FleetMonitor.getInstance().unregisterRobot(this);
+        grid.getLeases().unregister(robotId);
+        if (tokenMutex != null) {
+            tokenMutex.releaseAll();
+            grid.leaveTokenPeers(this);
         }
+        releaseSegment();
+        grid.clearRoute(robotId);
     }
 
     private class RetryBehaviour extends CyclicBehaviour {
         @Override
         public void action() {
-            //Only active for moving robots that haven't reached target
+            //Only active for moving robots that haven't reached target; sleeps until woken otherwise
             if (isStatic || hasReachedTarget() || !isMoving) {
-                block(500);
+                block();
+                return;
+            }
+
+            processLeaseGrants();
+            if (!requesting) {
+                block(); // Woken by the next REQUEST we send or a lease grant
                 return;
             }
 
-            // Check if we should retry a request
-            long currentTime = System.currentTimeMillis();
+            // Retry only if our place in the lease queue was lost; while queued, the grant
+            // arrives by itself when the cell is released or its holder's lease expires
+            long currentTime = now();
             if (requesting && hasPendingRequest &&
                     (currentTime - lastRequestTime > RETRY_INTERVAL) &&
-                    retryCount < MAX_RETRIES) {
+                    retryCount < MAX_RETRIES &&
+                    grid.getLeases().enqueue(requestedCellX * grid.getCols() + requestedCellY, robotId)) {
 
                 log("Retrying request for cell (" + requestedCellX + "," + requestedCellY + ") - Attempt #" + (retryCount + 1));
                 retryCount++;
+                grid.getMetrics().recordRetry();
                 lastRequestTime = currentTime;
 
                 // Resend the request
@@ -121,60 +255,67 @@ public class RobotAgent extends Agent {
                     if (occupant != null) {
                         ACLMessage request = new ACLMessage(ACLMessage.REQUEST);
                         request.addReceiver(occupant.getAID());
-                        request.setContent("REQUEST:" + requestedCellX + ":" + requestedCellY + ":" + logicalClock);
+                        request.setContent(requestContent(requestedCellX, requestedCellY));
+                        notePassingStatic(occupant, requestedCellX, requestedCellY);
                         request.setSender(getAID());
-                        send(request);
+                        sendMessage(request);
                         log("Resent request to " + occupant.getRobotId());
                     }
                 }
             }
 
-            block(300);
+            block(wallMillis(RETRY_INTERVAL));
         }
     }
 
     private class AdaptiveStaticBehaviour extends CyclicBehaviour {
         private int moveState = 0; // 0=waiting, 1=moving away, 2=waiting at temp, 3=returning
         private long waitStartTime = 0;
-        private static final long WAIT_TIME = 3000; // Wait 3 seconds at temp position
+        // Fallback only: the robot normally returns as soon as every requester reported PASSED
+        private final long MAX_PARK_TIME = Long.getLong("parking.maxWaitMs", 10000);
 
         @Override
         public void action() {
             if (!isStatic) {
-                block(300);
+                block();
                 return;
             }
 
             // Check if we should start moving
             //start moving when enough requests received
-            if (requestCount >= requestsNeededToMove && moveState == 0 && !temporarilyMoving) {
+            // Move aside for enough distinct requesters, or once a requester has been queued on our
+            // cell as long as that many resends used to take
+            int myCell = currentX * grid.getCols() + currentY;
+            boolean waitedLongEnough = grid.getLeases().getOldestWaitMillis(myCell) >=
+                    requestsNeededToMove * RETRY_INTERVAL;
+            if ((requestCount >= requestsNeededToMove || (waitedLongEnough && requestCount > 0)) &&
+                    moveState == 0 && !temporarilyMoving) {
                 log("🎯 RECEIVED " + requestCount + " REQUESTS! Starting temporary movement to open path.");
                 temporarilyMoving = true;
                 moveState = 1; // Start moving away
                 requestCount = 0; // Reset counter
+                parkedFor.clear();
+                parkedFor.addAll(distinctRequesters); // We return once all of them have passed
+                distinctRequesters.clear();
 
-                // Find a temporary position to move to
-                int[] tempPos = findTemporaryPosition();
-                if (tempPos != null) {
-                    tempTargetX = tempPos[0];
-                    tempTargetY = tempPos[1];
-                    log("Will move temporarily to (" + tempTargetX + "," + tempTargetY + ")");
+                // Find a parking cell off every planned route
+                synchronized(grid) {
+                    parkingPath = findParkingPath();
+                }
+                parkingStep = 0;
+                if (parkingPath != null && parkingPath.length > 0) {
+                    int end = parkingPath[parkingPath.length - 1];
+                    tempTargetX = end / grid.getCols();
+                    tempTargetY = end % grid.getCols();
+                    log("🅿️ Will park at (" + tempTargetX + "," + tempTargetY + "), " +
+                            parkingPath.length + " steps away");
                 } else {
-                    // Default position
-                    if (originalX == 2 && originalY == 2) {
-                        tempTargetX = 1;
-                        tempTargetY = 1;
-                    } else if (originalX == 2 && originalY == 1) {
-                        tempTargetX = 1;
-                        tempTargetY = 0;
-                    } else if (originalX == 2 && originalY == 3) {
-                        tempTargetX = 3;
-                        tempTargetY = 4;
-                    } else {
-                        tempTargetX = (originalX > 0) ? originalX - 1 : originalX + 1;
-                        tempTargetY = (originalY > 0) ? originalY - 1 : originalY + 1;
-                    }
-                    log("Using default temporary position (" + tempTargetX + "," + tempTargetY + ")");
+                    log("🅿️ No free cell to park in, staying put");
+                    temporarilyMoving = false;
+                    moveState = 0;
+                    parkedFor.clear();
+                    block(); // Retried on the next REQUEST
+                    return;
                 }
 
                 // Change color to purple to indicate adaptive mode
@@ -190,19 +331,20 @@ public class RobotAgent extends Agent {
                     if (currentX == tempTargetX && currentY == tempTargetY) {
                         log("✅ Reached temporary position (" + tempTargetX + "," + tempTargetY + "). Waiting for main robots...");
                         moveState = 2; // Start waiting
-                        waitStartTime = System.currentTimeMillis();
+                        waitStartTime = now();
                     } else {
-                        moveTowardTarget(tempTargetX, tempTargetY);
+                        stepTowardParking();
                     }
                     break;
 
                 case 2: // Waiting at temporary position
-                    long currentTime = System.currentTimeMillis();
-                    if (currentTime - waitStartTime >= WAIT_TIME) {
-                        log("⏰ Wait time completed. Returning to original position...");
-                        moveState = 3; // Start returning
-                        tempTargetX = originalX;
-                        tempTargetY = originalY;
+                    long waited = now() - waitStartTime;
+                    if (waited >= MAX_PARK_TIME) {
+                        log("⏰ No PASSED from " + parkedFor + " after " + MAX_PARK_TIME + " ms. Returning to original position...");
+                        startReturn();
+                    } else {
+                        block(wallMillis(MAX_PARK_TIME - waited)); // The last PASSED wakes us earlier
+                        return;
                     }
                     break;
 
@@ -221,7 +363,15 @@ public class RobotAgent extends Agent {
                     break;
             }
 
-            block(300);
+            if (moveState != 0) {
+                block(wallMillis(300)); // Stepping to or from the parking cell
+            } else if (requestCount > 0) {
+                // Sleep until a requester has been queued long enough, unless more REQUESTs come first
+                long waitedMillis = grid.getLeases().getOldestWaitMillis(currentX * grid.getCols() + currentY);
+                block(wallMillis(requestsNeededToMove * RETRY_INTERVAL - waitedMillis));
+            } else {
+                block(); // Nothing to do until a REQUEST arrives
+            }
         }
     }
 
@@ -247,11 +397,11 @@ public class RobotAgent extends Agent {
             synchronized(grid) {
                 // Check if cell is free
                 if (grid.isCellFree(nextX, nextY) && !grid.isCellBlocked(nextX, nextY)) {
-                    grid.freeCell(currentX, currentY);
                     int oldX = currentX, oldY = currentY;
+                    grid.moveRobot(oldX, oldY, nextX, nextY, this);
                     currentX = nextX;
                     currentY = nextY;
-                    grid.occupyCell(currentX, currentY, this);
+                    recordMove();
 
                     log("↪️ Moved from (" + oldX + "," + oldY + ") to (" + currentX + "," + currentY + ")");
 
@@ -282,11 +432,11 @@ public class RobotAgent extends Agent {
             if (x >= 0 && x < 5 && y >= 0 && y < 5) {
                 synchronized(grid) {
                     if (grid.isCellFree(x, y) && !grid.isCellBlocked(x, y)) {
-                        grid.freeCell(currentX, currentY);
                         int oldX = currentX, oldY = currentY;
+                        grid.moveRobot(oldX, oldY, x, y, this);
                         currentX = x;
                         currentY = y;
-                        grid.occupyCell(currentX, currentY, this);
+                        recordMove();
 
                         log("↪️ Alternative move from (" + oldX + "," + oldY + ") to (" + currentX + "," + currentY + ")");
 
@@ -300,145 +450,301 @@ public class RobotAgent extends Agent {
         }
     }
 
-    private int[] findTemporaryPosition() {
-        // Find a position away from the current position that is free
-        int[][] possiblePositions = {
-                {currentX - 1, currentY}, // up
-                {currentX + 1, currentY}, // down
-                {currentX, currentY - 1}, // left
-                {currentX, currentY + 1}, // right
-                {currentX - 1, currentY - 1}, // up-left
-                {currentX - 1, currentY + 1}, // up-right
-                {currentX + 1, currentY - 1}, // down-left
-                {currentX + 1, currentY + 1}  // down-right
-        };
-
-        // Try positions that are away from the path first
-        for (int[] pos : possiblePositions) {
-            int x = pos[0];
-            int y = pos[1];
-
-            if (x >= 0 && x < 5 && y >= 0 && y < 5) {
-                // Check if cell is free and not blocked
-                if (grid.isCellFree(x, y) && !grid.isCellBlocked(x, y)) {
-                    // Also check if it's not too close to other static robots
-                    boolean tooClose = false;
-                    for (int i = 0; i < 5; i++) {
-                        for (int j = 0; j < 5; j++) {
-                            RobotAgent other = grid.getRobotAt(i, j);
-                            if (other != null && other.isStatic() && other != this) {
-                                int distance = Math.abs(x - i) + Math.abs(y - j);
-                                if (distance <= 1) {
-                                    tooClose = true;
-                                    break;
-                                }
-                            }
-                        }
-                    }
-                    if (!tooClose) {
-                        return pos;
+    // Nearest free cell reachable from here, found by BFS over free cells. Cells on another
+    // robot's published route are avoided, and so, if possible, are cells next to other static
+    // robots; when every reachable cell is on some route the nearest one is used. Returns the
+    // path from here (exclusive) to the parking cell, or null if we are boxed in.
+    private int[] findParkingPath() {
+        int cols = grid.getCols();
+        Set<Integer> onRoute = grid.activeRouteCells(robotId);
+        int start = currentX * cols + currentY;
+        Map<Integer, Integer> parent = new HashMap<>(); // only the cells the search reaches
+        parent.put(start, start);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(start);
+        int offRoute = -1, anyFree = -1;
+        int[][] steps = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+        while (!queue.isEmpty()) {
+            int cell = queue.poll();
+            int x = cell / cols, y = cell % cols;
+            if (cell != start) {
+                if (!onRoute.contains(cell)) {
+                    if (!nextToStaticRobot(x, y)) {
+                        return pathTo(parent, start, cell);
                     }
+                    if (offRoute < 0) offRoute = cell;
+                } else if (anyFree < 0) {
+                    anyFree = cell;
+                }
+            }
+            for (int[] step : steps) {
+                int nx = x + step[0], ny = y + step[1];
+                if (grid.isCellFree(nx, ny) && parent.putIfAbsent(nx * cols + ny, cell) == null) {
+                    queue.add(nx * cols + ny);
                 }
             }
         }
+        int best = offRoute >= 0 ? offRoute : anyFree;
+        return best < 0 ? null : pathTo(parent, start, best);
+    }
 
-        // If no good position found, try any free position
-        for (int[] pos : possiblePositions) {
-            int x = pos[0];
-            int y = pos[1];
+    private boolean nextToStaticRobot(int x, int y) {
+        int[][] around = {{x - 1, y}, {x + 1, y}, {x, y - 1}, {x, y + 1}};
+        for (int[] cell : around) {
+            RobotAgent other = grid.getRobotAt(cell[0], cell[1]);
+            if (other != null && other != this && other.isStatic()) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-            if (x >= 0 && x < 5 && y >= 0 && y < 5) {
-                if (grid.isCellFree(x, y) && !grid.isCellBlocked(x, y)) {
-                    return pos;
-                }
+    private static int[] pathTo(Map<Integer, Integer> parent, int start, int end) {
+        int length = 0;
+        for (int cell = end; cell != start; cell = parent.get(cell)) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int cell = end, i = length - 1; cell != start; cell = parent.get(cell), i--) {
+            path[i] = cell;
+        }
+        return path;
+    }
+
+    // Next step toward the parking cell; a step that got taken meanwhile triggers a new search
+    private void stepTowardParking() {
+        int cols = grid.getCols();
+        if (parkingPath != null && parkingStep < parkingPath.length) {
+            int next = parkingPath[parkingStep];
+            if (isAdjacentCell(currentX, currentY, next / cols, next % cols) && relocate(next / cols, next % cols)) {
+                parkingStep++;
+                return;
             }
         }
-        return null;
+        parkingPath = findParkingPath();
+        parkingStep = 0;
+        if (parkingPath != null && parkingPath.length > 0) {
+            int end = parkingPath[parkingPath.length - 1];
+            tempTargetX = end / cols;
+            tempTargetY = end % cols;
+            log("🅿️ Re-planned parking to (" + tempTargetX + "," + tempTargetY + ")");
+        }
+    }
+
+    private boolean relocate(int x, int y) {
+        synchronized(grid) {
+            if (!grid.isCellFree(x, y)) {
+                return false;
+            }
+            int oldX = currentX, oldY = currentY;
+            grid.moveRobot(oldX, oldY, x, y, this);
+            currentX = x;
+            currentY = y;
+            recordMove();
+            log("↪️ Moved from (" + oldX + "," + oldY + ") to (" + currentX + "," + currentY + ")");
+            if (mainFrame != null) {
+                mainFrame.updateGrid();
+            }
+            return true;
+        }
+    }
+
+    // Everyone we parked for has passed: head back (or stop heading out)
+    private void handlePassedMessage(ACLMessage msg) {
+        String sender = msg.getSender().getLocalName();
+        if (!parkedFor.remove(sender) || !parkedFor.isEmpty() || adaptiveBehaviour == null) {
+            return;
+        }
+        if (adaptiveBehaviour.moveState == 1 || adaptiveBehaviour.moveState == 2) {
+            log("✅ All requesters have passed. Returning to original position...");
+            startReturn();
+        }
+    }
+
+    private void startReturn() {
+        adaptiveBehaviour.moveState = 3;
+        tempTargetX = originalX;
+        tempTargetY = originalY;
+        parkingPath = null;
+        parkedFor.clear();
     }
 
     private class MovementBehaviour extends CyclicBehaviour {
         @Override
         public void action() {
             if (!isMoving || hasReachedTarget() || isStatic) {
-                block(500);
+                block(); // setMoving wakes us
                 return;
             }
 
             if (inDeadlock) {
                 // Try to resolve deadlock
                 attemptDeadlockResolution();
-                block(800);
+                block(wallMillis(800));
                 return;
             }
 
             synchronized(movementLock) {
-                long currentTime = System.currentTimeMillis();
-                if (currentTime - lastMoveTime >= MOVE_INTERVAL) {
+                long currentTime = now();
+                long nowNanos = System.nanoTime();
+                long interval = timedRoute != null ? 0 : nextMoveDelay; // Timed plans wait for the plan tick
+                if (!requesting && !hasPendingRequest && lastIdleSample > 0 &&
+                        currentTime - lastMoveTime < interval) {
+                    // Ready to move but held back by the pacing interval
+                    grid.getMetrics().recordIdleNanos(nowNanos - lastIdleSample);
+                }
+                lastIdleSample = nowNanos;
+                if (currentTime - lastMoveTime >= interval) {
                     canMoveThisCycle = true;
 
                     if (!requesting && !hasPendingRequest && canMoveThisCycle) {
-                        requestNextCell();
+                        publishRoute();
+                        int fromX = currentX, fromY = currentY;
+                        boolean timed = reservedCells.isEmpty() && timedRoute != null;
+                        if (!reservedCells.isEmpty()) {
+                            advanceSegment();
+                        } else if (timed) {
+                            followTimedRoute();
+                        } else {
+                            requestNextCell();
+                        }
+                        if (!timed) {
+                            paceNextMove(fromX, fromY);
+                        }
+                        if (requesting) {
+                            retryBehaviour.restart(); // Sleeps while we are not waiting on a cell
+                        }
                         canMoveThisCycle = false;
                         lastMoveTime = currentTime;
                     }
                 }
             }
 
-            block(100);
+            block(wallMillis(100));
         }
     }
 
-    private class DeadlockDetectionBehaviour extends CyclicBehaviour {
+    // Armed once per deadlock episode instead of polling: gives up on the target if the same
+    // episode is still unresolved when the timeout fires
+    private class DeadlockDetectionBehaviour extends WakerBehaviour {
+        private final long startedAt;
+
+        DeadlockDetectionBehaviour() {
+            super(RobotAgent.this, wallMillis(DEADLOCK_TIMEOUT));
+            this.startedAt = deadlockStartTime;
+        }
+
         @Override
-        public void action() {
-            if (isStatic || hasReachedTarget() || !isMoving) {
-                block(1000);
+        protected void onWake() {
+            if (!inDeadlock || deadlockStartTime != startedAt || !isMoving || hasReachedTarget()) {
                 return;
             }
-
-            // Check for deadlock timeout
-            if (inDeadlock && System.currentTimeMillis() - deadlockStartTime > DEADLOCK_TIMEOUT) {
-                log("⚠️ DEADLOCK TIMEOUT - Concluding path is impossible");
-                isMoving = false;
-                if (mainFrame != null) {
-                    mainFrame.logMessage("[DEADLOCK] " + robotId + " cannot reach target - path blocked");
-                }
+            log("⚠️ DEADLOCK TIMEOUT - Concluding path is impossible");
+            isMoving = false;
+            if (mainFrame != null) {
+                mainFrame.logMessage("[DEADLOCK] " + robotId + " cannot reach target - path blocked");
             }
-
-            block(500);
         }
     }
 
     private class MessageHandlingBehaviour extends CyclicBehaviour {
         @Override
         public void action() {
-            // Check for REQUEST messages
-            ACLMessage requestMsg = receive(MessageTemplate.MatchPerformative(ACLMessage.REQUEST));
-            if (requestMsg != null) {
-                handleRequestMessage(requestMsg);
+            contributeToCheckpoint();
+            heartbeatLease();
+            while (getO2AObject() != null) {
+                // Wake-ups only restart the behaviours; nothing to handle
             }
 
-            // Check for OK messages
-            ACLMessage okMsg = receive(MessageTemplate.MatchPerformative(ACLMessage.AGREE));
-            if (okMsg != null) {
-                handleOkMessage(okMsg);
+            // Drain the mailbox: with an untimed block() a message left behind would wait for the next one
+            boolean handled;
+            do {
+                handled = handleNextMessages();
+            } while (handled);
+
+            if (migrateTo != null && !requesting) {
+                String destination = migrateTo;
+                migrateTo = null;
+                doMove(new jade.core.ContainerID(destination, null));
+                return;
             }
 
-            // Check for RELEASE messages
-            ACLMessage informMsg = receive(MessageTemplate.MatchPerformative(ACLMessage.INFORM));
-            if (informMsg != null && informMsg.getContent() != null &&
-                    informMsg.getContent().startsWith("RELEASE")) {
-                handleReleaseMessage(informMsg);
+            if (isResting()) {
+                pinLease(); // Every time, whatever the heartbeat throttle last did
+                block(); // Woken by a message, a grant or a checkpoint
+            } else {
+                block(wallMillis(grid.getLeases().getTtlMillis() / 4)); // Keeps the heartbeat going
             }
+        }
+    }
+
+    // Handles at most one message of each kind; false if the mailbox had nothing for us
+    private boolean handleNextMessages() {
+        boolean handled = false;
+        // Check for REQUEST messages
+        ACLMessage requestMsg = receiveMessage(MessageTemplate.MatchPerformative(ACLMessage.REQUEST));
+        if (requestMsg != null) {
+            handleRequestMessage(requestMsg);
+            handled = true;
+        }
+
+        // Check for OK messages
+        ACLMessage okMsg = receiveMessage(MessageTemplate.MatchPerformative(ACLMessage.AGREE));
+        if (okMsg != null) {
+            handleOkMessage(okMsg);
+            handled = true;
+        }
 
-            // Check for DEADLOCK messages
-            ACLMessage deadlockMsg = receive(MessageTemplate.MatchPerformative(ACLMessage.INFORM));
-            if (deadlockMsg != null && deadlockMsg.getContent() != null &&
-                    deadlockMsg.getContent().startsWith("DEADLOCK")) {
-                handleDeadlockMessage(deadlockMsg);
+        // Check for RELEASE, DEADLOCK and PASSED messages, each by its content
+        ACLMessage informMsg = receiveMessage(MessageTemplate.MatchPerformative(ACLMessage.INFORM));
+        if (informMsg != null) {
+            handleInformMessage(informMsg);
+            handled = true;
+        }
+
+        // Region token traffic (Suzuki-Kasami mode only)
+        if (tokenMutex != null) {
+            ACLMessage tokenRequest = receiveMessage(MessageTemplate.and(
+                    MessageTemplate.MatchPerformative(ACLMessage.REQUEST_WHEN),
+                    MessageTemplate.MatchConversationId(SuzukiKasamiMutex.REQUEST_CONVERSATION)));
+            if (tokenRequest != null) {
+                handleTokenRequest(tokenRequest);
+                handled = true;
+            }
+            ACLMessage token = receiveMessage(MessageTemplate.and(
+                    MessageTemplate.MatchPerformative(ACLMessage.PROPAGATE),
+                    MessageTemplate.MatchConversationId(SuzukiKasamiMutex.TOKEN_CONVERSATION)));
+            if (token != null) {
+                handleToken(token);
+                handled = true;
             }
+        }
 
-            block(50);
+        // Region handoff confirmations (partitioned deployment only)
+        if (partition != null) {
+            ACLMessage handoff = receiveMessage(MessageTemplate.and(
+                    MessageTemplate.MatchPerformative(ACLMessage.CONFIRM),
+                    MessageTemplate.MatchConversationId(RegionAgent.HANDOFF_CONVERSATION)));
+            if (handoff != null) {
+                handleHandoffConfirm(handoff);
+                handled = true;
+            }
+        }
+
+        return handled;
+    }
+
+    private void handleInformMessage(ACLMessage msg) {
+        if (msg == null || msg.getContent() == null) {
+            return;
+        }
+        String content = msg.getContent();
+        if (content.startsWith("RELEASE")) {
+            handleReleaseMessage(msg);
+        } else if (content.startsWith("DEADLOCK")) {
+            handleDeadlockMessage(msg);
+        } else if (content.startsWith("PASSED")) {
+            handlePassedMessage(msg);
         }
     }
 
@@ -448,25 +754,32 @@ public class RobotAgent extends Agent {
         int cellX = Integer.parseInt(parts[1]);
         int cellY = Integer.parseInt(parts[2]);
         int timestamp = Integer.parseInt(parts[3]);
+        int priority = Integer.parseInt(parts[4]);
+        RobotEvents.Request event = new RobotEvents.Request();
+        event.begin();
 
         updateClock(timestamp);
 
         // Increment request count for static robots
         if (isStatic) {
-            requestCount++;
+            distinctRequesters.add(msg.getSender().getLocalName());
+            requestCount = distinctRequesters.size(); // Resent requests no longer inflate the count
             log("📨 Received request #" + requestCount + " from " + msg.getSender().getLocalName() +
                     " for cell (" + cellX + "," + cellY + ")");
 
             // If we're temporarily moving, grant access immediately
             if (temporarilyMoving) {
+                parkedFor.add(msg.getSender().getLocalName());
                 ACLMessage ok = msg.createReply();
                 ok.setPerformative(ACLMessage.AGREE);
-                ok.setContent("OK:" + logicalClock);
-                send(ok);
+                ok.setContent("OK:" + logicalClock + ":" + cellX + ":" + cellY);
+                sendMessage(ok);
                 log("✅ Granted access to " + msg.getSender().getLocalName() + " (temporarily moving)");
 
                 // Reset request count since we're granting access
                 requestCount = 0;
+                distinctRequesters.clear();
+                commitRequestEvent(event, msg, cellX, cellY, timestamp, "GRANTED");
                 return;
             }
         }
@@ -478,7 +791,10 @@ public class RobotAgent extends Agent {
             ACLMessage deny = msg.createReply();
             deny.setPerformative(ACLMessage.REFUSE);
             deny.setContent("STATIC_BLOCKED:" + logicalClock + ":" + requestCount);
-            send(deny);
+            sendMessage(deny);
+            grid.getMetrics().recordRefusal();
+            grid.recordRefusal(cellX, cellY);
+            commitRequestEvent(event, msg, cellX, cellY, timestamp, "REFUSED");
             return;
         }
 
@@ -487,20 +803,15 @@ public class RobotAgent extends Agent {
         if (!requesting) {
             shouldGrant = true;
         } else {
-            // Ricart-Agrawala algorithm
-            if (requestTimestamp > timestamp) {
+            // Ricart-Agrawala order, led by request priority
+            if (RobotPriority.precedes(priority, timestamp, msg.getSender().getLocalName(),
+                    requestPriority, requestTimestamp, robotId)) {
                 shouldGrant = true;
-            } else if (requestTimestamp == timestamp) {
-                if (robotId.compareTo(msg.getSender().getLocalName()) > 0) {
-                    shouldGrant = true;
-                } else {
-                    pendingRequests.add(msg);
-                    log("📥 Queued request from " + msg.getSender().getLocalName());
-                    return;
-                }
             } else {
-                pendingRequests.add(msg);
-                log("📥 Queued request from " + msg.getSender().getLocalName());
+                pendingRequests.add(msg.getSender().getLocalName(), timestamp, priority, cellX * grid.getCols() + cellY);
+                log("📥 Queued request from " + msg.getSender().getLocalName() + " (priority " + priority +
+                        " vs our " + requestPriority + ")");
+                commitRequestEvent(event, msg, cellX, cellY, timestamp, "DEFERRED");
                 return;
             }
         }
@@ -508,15 +819,31 @@ public class RobotAgent extends Agent {
         if (shouldGrant) {
             ACLMessage ok = msg.createReply();
             ok.setPerformative(ACLMessage.AGREE);
-            ok.setContent("OK:" + logicalClock);
-            send(ok);
+            ok.setContent("OK:" + logicalClock + ":" + cellX + ":" + cellY);
+            sendMessage(ok);
             log("✅ Granted access to " + msg.getSender().getLocalName());
+            commitRequestEvent(event, msg, cellX, cellY, timestamp, "GRANTED");
+        }
+    }
+
+    private void commitRequestEvent(RobotEvents.Request event, ACLMessage msg,
+                                    int cellX, int cellY, int timestamp, String decision) {
+        if (event.shouldCommit()) {
+            event.robotId = robotId;
+            event.requester = msg.getSender().getLocalName();
+            event.cellX = cellX;
+            event.cellY = cellY;
+            event.requestClock = timestamp;
+            event.clock = logicalClock;
+            event.decision = decision;
+            event.commit();
         }
     }
 
     private void handleOkMessage(ACLMessage msg) {
         String senderId = msg.getSender().getLocalName();
         String content = msg.getContent();
+        commitGrantEvent(senderId, content.startsWith("STATIC_BLOCKED"));
 
         if (content.startsWith("STATIC_BLOCKED")) {
             String[] parts = content.split(":");
@@ -527,12 +854,21 @@ public class RobotAgent extends Agent {
 
             // Reset retry count when blocked
             retryCount = 0;
-            lastRequestTime = System.currentTimeMillis();
+            lastRequestTime = now();
             return;
         }
 
+        // OK:clock:x:y names the granted cell; a grant for an earlier request is no grant for this one
+        String[] parts = content.split(":");
+        if (!requesting || (parts.length > 3 && (Integer.parseInt(parts[2]) != requestedCellX ||
+                Integer.parseInt(parts[3]) != requestedCellY))) {
+            log("↩️ Ignoring stale OK from " + senderId);
+            return;
+        }
         okReceived.put(senderId, true);
         log("✅ Received OK from " + senderId);
+        grid.getMetrics().recordAgree(requestSentNanos);
+        requestSentNanos = 0;
 
         // Reset block counter on successful move
         consecutiveBlocks = 0;
@@ -542,7 +878,8 @@ public class RobotAgent extends Agent {
         if (okReceived.size() == 1 && requesting) {
             new Thread(() -> {
                 try {
-                    Thread.sleep(50);
+                    Thread.sleep(wallMillis(50));
+                    awaitCheckpointCut();
                     moveToRequestedCell();
                 } catch (InterruptedException e) {
                     e.printStackTrace();
@@ -551,13 +888,28 @@ public class RobotAgent extends Agent {
         }
     }
 
+    private void commitGrantEvent(String grantor, boolean refused) {
+        RobotEvents.Grant event = new RobotEvents.Grant();
+        if (event.shouldCommit()) {
+            event.robotId = robotId;
+            event.grantor = grantor;
+            event.cellX = requestedCellX;
+            event.cellY = requestedCellY;
+            event.clock = logicalClock;
+            event.wait = requestStartNanos > 0 ? System.nanoTime() - requestStartNanos : 0;
+            event.refused = refused;
+            event.commit();
+        }
+    }
+
     private void handleDeadlockMessage(ACLMessage msg) {
         String senderId = msg.getSender().getLocalName();
         log("⚠️ Received DEADLOCK alert from " + senderId);
 
         if (!inDeadlock) {
             inDeadlock = true;
-            deadlockStartTime = System.currentTimeMillis();
+            deadlockStartTime = now();
+            addBehaviour(new DeadlockDetectionBehaviour());
             log("⚠️ ENTERING DEADLOCK RESOLUTION MODE");
             if (mainFrame != null) {
                 mainFrame.logMessage("[DEADLOCK] " + robotId + " entering deadlock resolution");
@@ -570,15 +922,28 @@ public class RobotAgent extends Agent {
         String[] parts = content.split(":");
 
         log("📤 Received RELEASE from " + msg.getSender().getLocalName());
+        RobotEvents.Release event = new RobotEvents.Release();
+        event.begin();
+
+        // Grant every pending request that does not compete for a cell with a better one
+        int granted = pendingRequests.grantNonConflicting((requester, cell) -> {
+            ACLMessage ok = new ACLMessage(ACLMessage.AGREE);
+            ok.addReceiver(new jade.core.AID(requester, jade.core.AID.ISLOCALNAME));
+            ok.setContent("OK:" + logicalClock + ":" + cell / grid.getCols() + ":" + cell % grid.getCols());
+            ok.setSender(getAID());
+            sendMessage(ok);
+        });
+        if (granted > 0) {
+            log("✅ Granted " + granted + " pending request(s), " + pendingRequests.size() + " still queued");
+        }
 
-        // Process pending requests
-        if (!pendingRequests.isEmpty()) {
-            ACLMessage pendingMsg = pendingRequests.poll();
-            ACLMessage ok = pendingMsg.createReply();
-            ok.setPerformative(ACLMessage.AGREE);
-            ok.setContent("OK:" + logicalClock);
-            send(ok);
-            log("✅ Granted pending request");
+        if (event.shouldCommit()) {
+            event.robotId = robotId;
+            event.releaser = msg.getSender().getLocalName();
+            event.clock = logicalClock;
+            event.grantedDeferred = granted > 0;
+            event.stillDeferred = pendingRequests.size();
+            event.commit();
         }
     }
 
@@ -603,6 +968,7 @@ public class RobotAgent extends Agent {
                 int[] alternate = findAlternatePathWhenStuck();
                 if (alternate != null) {
                     log("🔄 Found alternate path to (" + alternate[0] + "," + alternate[1] + ")");
+                    grid.getMetrics().recordAlternatePath();
                     requestAlternateCell(alternate[0], alternate[1]);
                 }
             }
@@ -635,18 +1001,30 @@ public class RobotAgent extends Agent {
                 int[] alternate = findAlternatePathWhenStuck();
                 if (alternate != null) {
                     log("🔄 Trying alternate move to (" + alternate[0] + "," + alternate[1] + ")");
+                    grid.getMetrics().recordAlternatePath();
                     requestAlternateCell(alternate[0], alternate[1]);
                 }
                 return;
             }
 
             if (grid.isCellFree(nextCell[0], nextCell[1])) {
-                // Cell is free, move immediately
-                moveToCell(nextCell[0], nextCell[1]);
+                // Cell is free: reserve the segment it starts, then move immediately
+                // (moveToCell skips cells leased to a waiting robot)
+                reserveSegmentFrom(nextCell[0], nextCell[1]);
+                enterCell(nextCell[0], nextCell[1]);
+                if (currentX != nextCell[0] || currentY != nextCell[1]) {
+                    grid.getLeases().release(nextCell[0] * grid.getCols() + nextCell[1], robotId);
+                    releaseSegment();
+                }
             } else {
                 // Cell occupied by another robot, need to request access
                 RobotAgent occupant = grid.getRobotAt(nextCell[0], nextCell[1]);
-                if (occupant != null) {
+                if (occupant != null && tokenMutex != null && !occupant.isStatic()) {
+                    // Token mode: a moving occupant leaves on its own, we enter once it has
+                    log("⏸️ Cell (" + nextCell[0] + "," + nextCell[1] + ") held by " + occupant.getRobotId() + ", waiting");
+                    consecutiveBlocks++;
+                    checkForDeadlock();
+                } else if (occupant != null) {
                     requesting = true;
                     hasPendingRequest = true;
                     requestedCellX = nextCell[0];
@@ -654,13 +1032,18 @@ public class RobotAgent extends Agent {
                     requestTimestamp = ++logicalClock;
                     okReceived.clear();
                     retryCount = 0;
-                    lastRequestTime = System.currentTimeMillis();
+                    lastRequestTime = now();
 
                     ACLMessage request = new ACLMessage(ACLMessage.REQUEST);
                     request.addReceiver(occupant.getAID());
-                    request.setContent("REQUEST:" + nextCell[0] + ":" + nextCell[1] + ":" + logicalClock);
+                    request.setContent(requestContent(nextCell[0], nextCell[1]));
+                    notePassingStatic(occupant, nextCell[0], nextCell[1]);
                     request.setSender(getAID());
-                    send(request);
+                    sendMessage(request);
+                    requestSentNanos = System.nanoTime();
+                    requestStartNanos = requestSentNanos;
+                    grid.getMetrics().recordRequestSent();
+                    grid.getLeases().enqueue(nextCell[0] * grid.getCols() + nextCell[1], robotId);
 
                     log("📨 Requesting cell (" + nextCell[0] + "," + nextCell[1] + ") from " + occupant.getRobotId());
                 }
@@ -668,6 +1051,53 @@ public class RobotAgent extends Agent {
         }
     }
 
+    // Plan step k is due k ticks after the grid's plan clock started, the same tick for every
+    // robot. The plans are only collision-free while everyone keeps to it, so the step advances
+    // only on a confirmed move and any slip (a missed tick, a refused move) drops the plan.
+    private void followTimedRoute() {
+        int cols = grid.getCols();
+        int here = currentX * cols + currentY;
+        if (timedRoute[timedStep] != here) {
+            abandonTimedRoute("off plan at step " + timedStep);
+            return;
+        }
+        if (timedStep + 1 >= timedRoute.length) {
+            timedRoute = null; // Plan finished
+            return;
+        }
+
+        long tick = (now() - grid.getPlanStart()) / MOVE_INTERVAL;
+        if (tick <= timedStep) {
+            return; // Next step not due yet
+        }
+        if (tick > timedStep + 1) {
+            abandonTimedRoute("missed the tick of step " + (timedStep + 1));
+            requestNextCell();
+            return;
+        }
+
+        int next = timedRoute[timedStep + 1];
+        if (next != here) {
+            int nextX = next / cols, nextY = next % cols;
+            synchronized(grid) {
+                if (grid.isCellFree(nextX, nextY)) {
+                    moveToCell(nextX, nextY);
+                }
+            }
+            if (currentX != nextX || currentY != nextY) {
+                abandonTimedRoute("could not enter (" + nextX + "," + nextY + ") at step " + (timedStep + 1));
+                requestNextCell();
+                return;
+            }
+        }
+        timedStep++; // Moved, or a planned wait
+    }
+
+    private void abandonTimedRoute(String reason) {
+        log("🔀 Drifted from precomputed plan (" + reason + "), falling back to messaging");
+        timedRoute = null;
+    }
+
     private int[] findAlternatePathWhenStuck() {
         // When stuck, try moving in any direction that might help
         int[][] possibleMoves = {
@@ -728,7 +1158,7 @@ public class RobotAgent extends Agent {
 
         // Check if cell is free
         if (grid.isCellFree(x, y)) {
-            moveToCell(x, y);
+            enterCell(x, y);
         } else {
             // Cell occupied by another robot
             RobotAgent occupant = grid.getRobotAt(x, y);
@@ -740,13 +1170,18 @@ public class RobotAgent extends Agent {
                 requestTimestamp = ++logicalClock;
                 okReceived.clear();
                 retryCount = 0;
-                lastRequestTime = System.currentTimeMillis();
+                lastRequestTime = now();
 
                 ACLMessage request = new ACLMessage(ACLMessage.REQUEST);
                 request.addReceiver(occupant.getAID());
-                request.setContent("REQUEST:" + x + ":" + y + ":" + logicalClock);
+                request.setContent(requestContent(x, y));
+                notePassingStatic(occupant, x, y);
                 request.setSender(getAID());
-                send(request);
+                sendMessage(request);
+                requestSentNanos = System.nanoTime();
+                requestStartNanos = requestSentNanos;
+                grid.getMetrics().recordRequestSent();
+                grid.getLeases().enqueue(x * grid.getCols() + y, robotId);
 
                 log("📨 Requesting alternate cell (" + x + "," + y + ") from " + occupant.getRobotId());
             }
@@ -756,8 +1191,19 @@ public class RobotAgent extends Agent {
     private void checkForDeadlock() {
         if (consecutiveBlocks >= MAX_BLOCKS_BEFORE_DEADLOCK && !inDeadlock) {
             inDeadlock = true;
-            deadlockStartTime = System.currentTimeMillis();
+            deadlockStartTime = now();
+            addBehaviour(new DeadlockDetectionBehaviour());
             log("⚠️ DEADLOCK DETECTED! Blocked " + consecutiveBlocks + " times");
+            grid.getMetrics().recordDeadlock();
+            RobotEvents.Deadlock event = new RobotEvents.Deadlock();
+            if (event.shouldCommit()) {
+                event.robotId = robotId;
+                event.x = currentX;
+                event.y = currentY;
+                event.consecutiveBlocks = consecutiveBlocks;
+                event.clock = logicalClock;
+                event.commit();
+            }
             if (mainFrame != null) {
                 mainFrame.logMessage("[DEADLOCK] " + robotId + " detected deadlock");
             }
@@ -773,7 +1219,7 @@ public class RobotAgent extends Agent {
         deadlockAlert.addReceiver(new jade.core.AID(otherRobotName, jade.core.AID.ISLOCALNAME));
         deadlockAlert.setContent("DEADLOCK:" + currentX + ":" + currentY + ":" + logicalClock);
         deadlockAlert.setSender(getAID());
-        send(deadlockAlert);
+        sendMessage(deadlockAlert);
         log("📤 Broadcasted DEADLOCK alert to " + otherRobotName);
     }
 
@@ -784,6 +1230,7 @@ public class RobotAgent extends Agent {
         int[] longAlternate = findLongAlternatePath();
         if (longAlternate != null) {
             log("🔄 Found long alternate path to (" + longAlternate[0] + "," + longAlternate[1] + ")");
+            grid.getMetrics().recordAlternatePath();
             requestAlternateCell(longAlternate[0], longAlternate[1]);
             inDeadlock = false;
             consecutiveBlocks = 0;
@@ -920,10 +1367,13 @@ public class RobotAgent extends Agent {
 
     private void moveToRequestedCell() {
         if (!requesting) return;
+        RobotEvents.Move event = new RobotEvents.Move();
+        event.begin();
 
         synchronized(grid) {
             if (!isAdjacentCell(currentX, currentY, requestedCellX, requestedCellY)) {
                 log("⚠️ ERROR: Requested cell is not adjacent! Canceling move.");
+                grid.getLeases().cancel(robotId);
                 requesting = false;
                 hasPendingRequest = false;
                 okReceived.clear();
@@ -934,6 +1384,7 @@ public class RobotAgent extends Agent {
             // Check if cell is blocked
             if (grid.isCellBlocked(requestedCellX, requestedCellY)) {
                 log("⛔ Requested cell (" + requestedCellX + "," + requestedCellY + ") is BLOCKED");
+                grid.getLeases().cancel(robotId);
                 requesting = false;
                 hasPendingRequest = false;
                 okReceived.clear();
@@ -943,8 +1394,10 @@ public class RobotAgent extends Agent {
                 return;
             }
 
-            if (!grid.isCellFree(requestedCellX, requestedCellY)) {
+            if (!grid.isCellFree(requestedCellX, requestedCellY) ||
+                    grid.getLeases().isLeasedToOther(requestedCellX * grid.getCols() + requestedCellY, robotId)) {
                 log("❌ Cell (" + requestedCellX + "," + requestedCellY + ") is now occupied");
+                grid.getLeases().cancel(robotId);
                 requesting = false;
                 hasPendingRequest = false;
                 okReceived.clear();
@@ -959,11 +1412,12 @@ public class RobotAgent extends Agent {
                 return;
             }
 
-            grid.freeCell(currentX, currentY);
             int oldX = currentX, oldY = currentY;
+            grid.moveRobot(oldX, oldY, requestedCellX, requestedCellY, this);
             currentX = requestedCellX;
             currentY = requestedCellY;
-            grid.occupyCell(currentX, currentY, this);
+            recordMove();
+            commitMoveEvent(event, oldX, oldY, true);
 
             log("✅ MOVED from (" + oldX + "," + oldY + ") to (" + currentX + "," + currentY + ")");
 
@@ -993,6 +1447,8 @@ public class RobotAgent extends Agent {
             return;
         }
 
+        RobotEvents.Move event = new RobotEvents.Move();
+        event.begin();
         synchronized(grid) {
             // Check if cell is blocked
             if (grid.isCellBlocked(x, y)) {
@@ -1007,12 +1463,17 @@ public class RobotAgent extends Agent {
                 log("❌ Cell (" + x + "," + y + ") is occupied");
                 return;
             }
+            if (grid.getLeases().isLeasedToOther(x * grid.getCols() + y, robotId)) {
+                log("🔒 Cell (" + x + "," + y + ") is leased to a waiting robot");
+                return;
+            }
 
-            grid.freeCell(currentX, currentY);
             int oldX = currentX, oldY = currentY;
+            grid.moveRobot(oldX, oldY, x, y, this);
             currentX = x;
             currentY = y;
-            grid.occupyCell(currentX, currentY, this);
+            recordMove();
+            commitMoveEvent(event, oldX, oldY, false);
 
             log("✅ MOVED from (" + oldX + "," + oldY + ") to (" + currentX + "," + currentY + ")");
 
@@ -1027,13 +1488,376 @@ public class RobotAgent extends Agent {
         }
     }
 
+    private void commitMoveEvent(RobotEvents.Move event, int fromX, int fromY, boolean granted) {
+        if (event.shouldCommit()) {
+            event.robotId = robotId;
+            event.fromX = fromX;
+            event.fromY = fromY;
+            event.toX = currentX;
+            event.toY = currentY;
+            event.clock = logicalClock;
+            event.requestToMove = granted && requestStartNanos > 0 ? System.nanoTime() - requestStartNanos : 0;
+            event.granted = granted;
+            event.commit();
+        }
+    }
+
+    // ============ PARKING ============
+
+    private void notePassingStatic(RobotAgent occupant, int x, int y) {
+        if (occupant.isStatic()) {
+            passingStatic.putIfAbsent(occupant.getRobotId(), new int[]{x * grid.getCols() + y, 0});
+        }
+    }
+
+    // After each move: a static robot's vacated cell we have been through, or any once we are
+    // at our target, no longer needs it parked
+    private void reportPassedStatics() {
+        if (passingStatic.isEmpty()) {
+            return;
+        }
+        int here = currentX * grid.getCols() + currentY;
+        boolean done = hasReachedTarget();
+        for (Map.Entry<String, int[]> e : passingStatic.entrySet()) {
+            int[] entry = e.getValue();
+            if (entry[0] == here) {
+                entry[1] = 1;
+                if (!done) {
+                    continue;
+                }
+            }
+            if (entry[1] == 1 || done) {
+                ACLMessage passed = new ACLMessage(ACLMessage.INFORM);
+                passed.addReceiver(new jade.core.AID(e.getKey(), jade.core.AID.ISLOCALNAME));
+                passed.setContent("PASSED:" + currentX + ":" + currentY + ":" + logicalClock);
+                passed.setSender(getAID());
+                sendMessage(passed);
+                passingStatic.remove(e.getKey());
+                log("📤 Told " + e.getKey() + " we have passed");
+            }
+        }
+    }
+
+    // Cells we still mean to cross, published for parking static robots: the remaining timed
+    // plan or planned route, or the greedy L-shaped way (rows first, as calculateNextMove goes)
+    private void publishRoute() {
+        if (hasReachedTarget()) {
+            grid.clearRoute(robotId);
+            return;
+        }
+        int cols = grid.getCols();
+        int[] route;
+        if (timedRoute != null) {
+            route = Arrays.copyOfRange(timedRoute, Math.min(timedStep, timedRoute.length), timedRoute.length);
+        } else if (plannedRoute != null && planningMode != PathPlanner.Mode.GREEDY &&
+                planningMode != PathPlanner.Mode.FLOW_FIELD) {
+            route = Arrays.copyOfRange(plannedRoute, Math.min(routeIndex, plannedRoute.length), plannedRoute.length);
+        } else {
+            route = new int[Math.abs(targetX - currentX) + Math.abs(targetY - currentY) + 1];
+            int x = currentX, y = currentY, i = 0;
+            route[i++] = x * cols + y;
+            while (x != targetX) {
+                x += Integer.signum(targetX - x);
+                route[i++] = x * cols + y;
+            }
+            while (y != targetY) {
+                y += Integer.signum(targetY - y);
+                route[i++] = x * cols + y;
+            }
+        }
+        grid.publishRoute(robotId, route);
+    }
+
+    // ============ PACING AND PRIORITY ============
+
+    // Progress resets the pace to the minimum; an attempt that left us in place backs off.
+    // A REQUEST in flight is not a failure: the grant moves us without waiting for a tick.
+    private void paceNextMove(int fromX, int fromY) {
+        if (currentX != fromX || currentY != fromY) {
+            backoff.reset();
+            nextMoveDelay = MIN_MOVE_INTERVAL;
+        } else if (!requesting) {
+            nextMoveDelay = backoff.fail();
+        }
+    }
+
+    // REQUEST:x:y:clock:priority, fixing the priority of the request we are about to send
+    private String requestContent(int x, int y) {
+        requestPriority = RobotPriority.of(urgency, Math.abs(targetX - currentX) + Math.abs(targetY - currentY),
+                now() - lastProgressTime);
+        return "REQUEST:" + x + ":" + y + ":" + logicalClock + ":" + requestPriority;
+    }
+
+    // ============ PATH SEGMENTS ============
+
+    // Reserves up to SEGMENT_LENGTH cells starting at (x, y) with one lease table call. Token
+    // mode keeps single cells, since a segment may cross into regions whose token we lack.
+    private void reserveSegmentFrom(int x, int y) {
+        if (SEGMENT_LENGTH <= 1 || tokenMutex != null) {
+            return;
+        }
+        int[] segment = segmentAhead(x, y);
+        int reserved = grid.reserveSegment(segment, this);
+        for (int i = 1; i < reserved; i++) {
+            reservedCells.add(segment[i]);
+        }
+        if (reserved > 1) {
+            log("🛣️ Reserved " + reserved + "-cell segment from (" + x + "," + y + ")");
+        }
+    }
+
+    // The next cells of our way beginning with (x, y): along the planned route or flow field
+    // when we follow one, otherwise straight on toward the target along the same axis
+    private int[] segmentAhead(int x, int y) {
+        int cols = grid.getCols();
+        List<Integer> cells = new ArrayList<>(SEGMENT_LENGTH);
+        cells.add(x * cols + y);
+        if (plannedRoute != null && planningMode != PathPlanner.Mode.GREEDY &&
+                routeIndex + 1 < plannedRoute.length && plannedRoute[routeIndex + 1] == x * cols + y) {
+            for (int i = routeIndex + 2; i < plannedRoute.length && cells.size() < SEGMENT_LENGTH; i++) {
+                cells.add(plannedRoute[i]);
+            }
+        } else if (planningMode == PathPlanner.Mode.FLOW_FIELD) {
+            FlowField field = grid.getFlowField(targetX, targetY);
+            int[] at = {x, y};
+            while (cells.size() < SEGMENT_LENGTH && (at[0] != targetX || at[1] != targetY) &&
+                    (at = field.nextCell(at[0], at[1])) != null) {
+                cells.add(at[0] * cols + at[1]);
+            }
+        } else {
+            int dx = x - currentX, dy = y - currentY;
+            int cx = x, cy = y;
+            while (cells.size() < SEGMENT_LENGTH &&
+                    (dx != 0 ? Integer.signum(targetX - cx) == dx : Integer.signum(targetY - cy) == dy)) {
+                cx += dx;
+                cy += dy;
+                cells.add(cx * cols + cy);
+            }
+        }
+        int[] segment = new int[cells.size()];
+        for (int i = 0; i < segment.length; i++) {
+            segment[i] = cells.get(i);
+        }
+        return segment;
+    }
+
+    // Steps into the next reserved cell; if we were pushed off the segment, give the rest back
+    private void advanceSegment() {
+        int cell = reservedCells.poll();
+        int cols = grid.getCols();
+        int x = cell / cols, y = cell % cols;
+        if (isAdjacentCell(currentX, currentY, x, y)) {
+            moveToCell(x, y);
+        }
+        if (currentX != x || currentY != y) {
+            log("🛣️ Left reserved segment at (" + currentX + "," + currentY + "), releasing the rest");
+            grid.getLeases().release(cell, robotId);
+            releaseSegment();
+        }
+    }
+
+    private void releaseSegment() {
+        Integer cell;
+        while ((cell = reservedCells.poll()) != null) {
+            grid.getLeases().release(cell, robotId);
+        }
+    }
+
+    // ============ REGION CONTAINERS ============
+
+    // Reports to the owner of the region we are now in when we crossed a boundary
+    private void checkRegionHandoff() {
+        if (partition == null) {
+            return;
+        }
+        int now = partition.regionOf(currentX, currentY);
+        if (now == region) {
+            return;
+        }
+        ACLMessage enter = new ACLMessage(ACLMessage.INFORM);
+        enter.setConversationId(RegionAgent.HANDOFF_CONVERSATION);
+        enter.addReceiver(new jade.core.AID(partition.regionAgentName(now), jade.core.AID.ISLOCALNAME));
+        enter.setContent("ENTER:" + robotId + ":" + region);
+        enter.setSender(getAID());
+        sendMessage(enter);
+        if (region >= 0) {
+            log("🗺️ Crossing from region " + region + " into region " + now);
+        }
+        region = now;
+    }
+
+    // Follows the region into its container so that talk with neighbours stays in one JVM
+    private void handleHandoffConfirm(ACLMessage msg) {
+        String[] parts = msg.getContent().split(":");
+        regionContainer = parts[2];
+        log("🗺️ Now owned by " + msg.getSender().getLocalName() + " in " + regionContainer);
+        if (here() != null && !regionContainer.equals(here().getName())) {
+            migrateTo = regionContainer;
+        }
+    }
+
+    @Override
+    protected void beforeMove() {
+        log("🚚 Migrating from " + here().getName() + " to " + regionContainer);
+    }
+
+    // Arrives as a fresh copy: attach the shared objects again and make the grid, the lease
+    // table and the monitors point at this instance instead of the one that left
+    @Override
+    protected void afterMove() {
+        grid = SimulationRegistry.getGrid(simulationId);
+        mainFrame = SimulationRegistry.getMainFrame(simulationId);
+        movementLock = new Object();
+        leaseGrants = grid.getLeases().register(robotId, this::wake);
+        grid.rebindRobot(currentX, currentY, this);
+        FleetMonitor.getInstance().registerRobot(this);
+        if (tokenMutex != null) {
+            tokenMutex.reattach(grid, new TokenTransport());
+            grid.joinTokenPeers(this); // The arriving copy replaces the one that left
+        }
+        log("🚚 Arrived in " + here().getName());
+    }
+
+    // ============ REGION TOKENS ============
+
+    // Moves into a free cell, first taking its region's token in Suzuki-Kasami mode. Entry is
+    // immediate when the token is here; otherwise the move happens when the token arrives.
+    private void enterCell(int x, int y) {
+        if (tokenMutex == null) {
+            moveToCell(x, y);
+            return;
+        }
+        int region = tokenMutex.regionOf(x, y);
+        boolean held = tokenMutex.holds(region);
+        if (!tokenMutex.tryEnter(region)) {
+            tokenWantedX = x;
+            tokenWantedY = y;
+            log("🎫 Waiting for token of region " + region + " to enter (" + x + "," + y + ")");
+            return;
+        }
+        if (held) {
+            grid.getMetrics().recordLocalEntry();
+        }
+        tokenWantedX = -1; // Any earlier wait is for a cell we no longer head for
+        tokenWantedY = -1;
+        moveToCell(x, y);
+        tokenMutex.exit(region);
+    }
+
+    private void handleTokenRequest(ACLMessage msg) {
+        String[] parts = msg.getContent().split(":");
+        tokenMutex.onRequest(Integer.parseInt(parts[1]), msg.getSender().getLocalName(), Integer.parseInt(parts[2]));
+    }
+
+    private void handleToken(ACLMessage msg) {
+        String content = msg.getContent();
+        int colon = content.indexOf(':', "TOKEN:".length());
+        int region = Integer.parseInt(content.substring("TOKEN:".length(), colon));
+        tokenMutex.onToken(region, content.substring(colon + 1));
+        log("🎫 Received token of region " + region + " from " + msg.getSender().getLocalName());
+
+        synchronized(grid) {
+            if (tokenWantedX >= 0 && tokenMutex.regionOf(tokenWantedX, tokenWantedY) == region &&
+                    tokenMutex.tryEnter(region)) {
+                if (grid.isCellFree(tokenWantedX, tokenWantedY)) {
+                    moveToCell(tokenWantedX, tokenWantedY);
+                }
+                tokenWantedX = -1;
+                tokenWantedY = -1;
+            }
+        }
+        tokenMutex.exit(region); // Hands it straight on if someone else is waiting
+    }
+
+    private class TokenTransport implements SuzukiKasamiMutex.Transport {
+        @Override
+        public void broadcastRequest(int region, int sequence) {
+            ACLMessage request = new ACLMessage(ACLMessage.REQUEST_WHEN);
+            request.setConversationId(SuzukiKasamiMutex.REQUEST_CONVERSATION);
+            int receivers = 0;
+            for (String peer : grid.getTokenPeers()) {
+                if (!peer.equals(robotId)) {
+                    request.addReceiver(new jade.core.AID(peer, jade.core.AID.ISLOCALNAME));
+                    receivers++;
+                }
+            }
+            if (receivers == 0) {
+                return;
+            }
+            request.setContent("TOKEN_REQUEST:" + region + ":" + sequence);
+            request.setSender(getAID());
+            sendMessage(request);
+        }
+
+        @Override
+        public void sendToken(String robotId, int region, String token) {
+            ACLMessage transfer = new ACLMessage(ACLMessage.PROPAGATE);
+            transfer.setConversationId(SuzukiKasamiMutex.TOKEN_CONVERSATION);
+            transfer.addReceiver(new jade.core.AID(robotId, jade.core.AID.ISLOCALNAME));
+            transfer.setContent("TOKEN:" + region + ":" + token);
+            transfer.setSender(getAID());
+            sendMessage(transfer);
+            grid.getMetrics().recordTokenTransfer();
+            log("🎫 Passed token of region " + region + " to " + robotId);
+        }
+    }
+
+    // ============ MESSAGING ============
+
+    // All agent traffic goes through these two so the event journal sees every message,
+    // and the message counters see one message per receiver
+    private void sendMessage(ACLMessage msg) {
+        EventJournal journal = grid.getJournal();
+        StringBuilder receivers = new StringBuilder();
+        Iterator<?> it = msg.getAllReceiver();
+        while (it != null && it.hasNext()) {
+            jade.core.AID receiver = (jade.core.AID) it.next();
+            grid.getMetrics().recordMessageSent();
+            if (journal != null) {
+                if (receivers.length() > 0) receivers.append(',');
+                receivers.append(receiver.getLocalName());
+            }
+        }
+        if (journal != null) {
+            journal.message(EventJournal.SEND, robotId, msg.getPerformative(), receivers.toString(),
+                    msg.getContent(), msg.getConversationId());
+        }
+        send(msg);
+    }
+
+    private ACLMessage receiveMessage(MessageTemplate template) {
+        ACLMessage msg = receive(template);
+        EventJournal journal = grid.getJournal();
+        if (msg != null && journal != null) {
+            journal.message(EventJournal.RECEIVE, robotId, msg.getPerformative(),
+                    msg.getSender() != null ? msg.getSender().getLocalName() : null,
+                    msg.getContent(), msg.getConversationId());
+        }
+        return msg;
+    }
+
+    private void recordMove() {
+        lastProgressTime = now();
+        checkRegionHandoff();
+        reportPassedStatics();
+        if (hasReachedTarget() && !isStatic) {
+            grid.clearRoute(robotId);
+        }
+        grid.getMetrics().recordMove(robotId);
+        grid.getTrajectories().record(robotId, color.getRGB(), currentX * grid.getCols() + currentY);
+        if (!hasMoved) {
+            hasMoved = true;
+            grid.getMetrics().recordFirstMotion();
+        }
+    }
+
     private void sendRelease() {
         ACLMessage release = new ACLMessage(ACLMessage.INFORM);
         String otherRobotName = robotId.equals("Robot1") ? "Robot2" : "Robot1";
         release.addReceiver(new jade.core.AID(otherRobotName, jade.core.AID.ISLOCALNAME));
         release.setContent("RELEASE:" + currentX + ":" + currentY + ":" + logicalClock);
         release.setSender(getAID());
-        send(release);
+        sendMessage(release);
 
         log("📤 Sent RELEASE for (" + currentX + "," + currentY + ")");
     }
@@ -1043,6 +1867,20 @@ public class RobotAgent extends Agent {
     }
 
     private int[] calculateNextMove() {
+        if (planningMode == PathPlanner.Mode.FLOW_FIELD) {
+            // Follow the shared arrow for our cell
+            int[] arrow = grid.getFlowField(targetX, targetY).nextCell(currentX, currentY);
+            if (arrow != null) {
+                return arrow;
+            }
+        } else if (planningMode != PathPlanner.Mode.GREEDY) {
+            int[] routed = nextRouteCell();
+            if (routed != null) {
+                return routed;
+            }
+            // No route available, fall through to greedy stepping
+        }
+
         int[] next = {currentX, currentY};
 
         // Simple pathfinding: move toward target using Manhattan distance
@@ -1096,6 +1934,54 @@ public class RobotAgent extends Agent {
         return next;
     }
 
+    private int[] nextRouteCell() {
+        int cols = grid.getCols();
+        int here = currentX * cols + currentY;
+
+        // Find our current cell on the route (alternate moves may have taken us off it)
+        int found = -1;
+        if (plannedRoute != null) {
+            for (int i = routeIndex; i < plannedRoute.length; i++) {
+                if (plannedRoute[i] == here) {
+                    found = i;
+                    break;
+                }
+            }
+        }
+
+        if (found < 0 || found + 1 >= plannedRoute.length ||
+                grid.isCellBlocked(plannedRoute[found + 1] / cols, plannedRoute[found + 1] % cols)) {
+            if (!planRoute()) {
+                return null;
+            }
+            found = 0;
+        }
+
+        routeIndex = found;
+        if (routeIndex + 1 >= plannedRoute.length) {
+            return null;
+        }
+        int next = plannedRoute[routeIndex + 1];
+        return new int[]{next / cols, next % cols};
+    }
+
+    private boolean planRoute() {
+        if (planner == null) {
+            planner = new PathPlanner(grid);
+        }
+        PathPlanner.PlanResult result = planner.plan(planningMode, currentX, currentY, targetX, targetY);
+        if (!result.isFound()) {
+            log("🧭 " + planningMode + " found no route to (" + targetX + "," + targetY + ")");
+            plannedRoute = null;
+            return false;
+        }
+        plannedRoute = result.getPath();
+        routeIndex = 0;
+        log("🧭 " + planningMode + " planned " + result.getLength() + "-step route (" +
+                result.getExpansions() + " expansions, " + result.getElapsedNanos() / 1000 + " µs)");
+        return plannedRoute.length > 1;
+    }
+
     private boolean hasReachedTarget() {
         return currentX == targetX && currentY == targetY;
     }
@@ -1110,6 +1996,170 @@ public class RobotAgent extends Agent {
         }
     }
 
+    // ============ CELL LEASES ============
+
+    private void processLeaseGrants() {
+        Integer cell;
+        while ((cell = leaseGrants.poll()) != null) {
+            int cols = grid.getCols();
+            if (requesting && cell == requestedCellX * cols + requestedCellY) {
+                log("🔑 Lease granted for (" + requestedCellX + "," + requestedCellY + ")");
+                okReceived.put("lease", true);
+                grid.getMetrics().recordAgree(requestSentNanos); // A grant answers the request like an AGREE
+                requestSentNanos = 0;
+                moveToRequestedCell();
+            } else if (cell != currentX * cols + currentY) {
+                grid.getLeases().release(cell, robotId); // No longer wanted: pass it on
+            }
+        }
+    }
+
+    // Keeps the lease on our cell alive; throttled to a few beats per TTL. A beat unpins the
+    // lease, so the behaviour pins it again with pinLease() before every untimed sleep.
+    private void heartbeatLease() {
+        long now = now();
+        CellLeaseTable leases = grid.getLeases();
+        if (now - lastHeartbeat < leases.getTtlMillis() / 4) {
+            return;
+        }
+        lastHeartbeat = now;
+        int cell = currentX * grid.getCols() + currentY;
+        if (!leases.heartbeat(cell, robotId) && grid.getRobotAt(currentX, currentY) == this) {
+            leases.acquire(cell, robotId); // Lapsed while we were still standing here
+        }
+        for (int reserved : reservedCells) {
+            leases.heartbeat(reserved, robotId); // A lapsed reservation is simply lost
+        }
+    }
+
+    // Pins the lease on our cell before an untimed block, so the cell cannot lapse while the
+    // agent sleeps without heartbeating
+    private void pinLease() {
+        CellLeaseTable leases = grid.getLeases();
+        int cell = currentX * grid.getCols() + currentY;
+        if (!leases.pin(cell, robotId) && grid.getRobotAt(currentX, currentY) == this) {
+            leases.acquire(cell, robotId); // Lapsed while we were still standing here
+            leases.pin(cell, robotId);
+        }
+    }
+
+    // ============ TIME ============
+
+    private long now() {
+        return grid.getClock().now();
+    }
+
+    // Wall-clock wait for a simulated interval at the current clock speed
+    private long wallMillis(long simMillis) {
+        return grid.getClock().toWall(simMillis);
+    }
+
+    // Nothing left to do until another robot or the GUI asks for something: static and not
+    // stepping aside, or moving but at the target or stopped
+    private boolean isResting() {
+        return isStatic ? !temporarilyMoving : (hasReachedTarget() || !isMoving);
+    }
+
+    // Restarts the agent's sleeping behaviours from any thread (lease grants, GUI, checkpoints).
+    // A replay stand-in never enabled O2A, so JADE drops the object there.
+    public void wake() {
+        try {
+            putO2AObject(Boolean.TRUE, false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ============ CHECKPOINTS ============
+
+    // Adds this agent's state to a checkpoint in progress, once, from the agent's own thread
+    private void contributeToCheckpoint() {
+        SimulationCheckpoint checkpoint = grid.getPendingCheckpoint();
+        if (checkpoint == null || checkpoint == lastCheckpoint) {
+            return;
+        }
+        lastCheckpoint = checkpoint;
+        SimulationCheckpoint.RobotState state = new SimulationCheckpoint.RobotState();
+        state.robotId = robotId;
+        synchronized(grid) {
+            // Under the grid lock: a move from a grant thread cannot land between the two reads
+            if (grid.getRobotAt(currentX, currentY) == this) {
+                state.x = currentX;
+                state.y = currentY;
+            }
+        }
+        state.targetX = targetX;
+        state.targetY = targetY;
+        state.isStatic = isStatic;
+        state.requestsNeededToMove = requestsNeededToMove;
+        state.originalX = originalX;
+        state.originalY = originalY;
+        state.logicalClock = logicalClock;
+        state.requestCount = requestCount;
+        state.consecutiveBlocks = consecutiveBlocks;
+        state.temporarilyMoving = temporarilyMoving;
+        state.tempTargetX = tempTargetX;
+        state.tempTargetY = tempTargetY;
+        state.moveState = adaptiveBehaviour != null ? adaptiveBehaviour.moveState : 0;
+        state.planningMode = planningMode.name();
+        state.requesting = requesting;
+        state.requestedCellX = requestedCellX;
+        state.requestedCellY = requestedCellY;
+        checkpoint.addRobot(state);
+        awaitCheckpointCut();
+    }
+
+    // Holds this robot's moves until every agent has added its state to the checkpoint in
+    // progress, so no recorded cell is left or entered before the cut is complete. Called from
+    // the agent's thread after contributing and from the grant threads before they move.
+    private void awaitCheckpointCut() {
+        SimulationCheckpoint checkpoint = grid.getPendingCheckpoint();
+        if (checkpoint == null) {
+            return;
+        }
+        try {
+            if (!checkpoint.awaitRobots(SimulationCheckpoint.CAPTURE_TIMEOUT_MS)) {
+                log("⚠️ Checkpoint incomplete, moving on");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Neither outstanding nor deferred requests are restored: the robot asks again for its next
+    // cell, and the robots it had held back ask again for theirs
+    private void restoreState(SimulationCheckpoint.RobotState state) {
+        logicalClock = state.logicalClock;
+        requestCount = state.requestCount;
+        consecutiveBlocks = state.consecutiveBlocks;
+        temporarilyMoving = state.temporarilyMoving;
+        tempTargetX = state.tempTargetX;
+        tempTargetY = state.tempTargetY;
+        planningMode = PathPlanner.Mode.valueOf(state.planningMode);
+        log("♻️ Restored from checkpoint: clock " + logicalClock);
+    }
+
+    // ============ REPLAY ============
+
+    // Stand-in for an agent in a replayed journal: carries identity and position for drawing only
+    static RobotAgent forReplay(String robotId, int x, int y, int targetX, int targetY,
+                                boolean isStatic, Color color) {
+        RobotAgent robot = new RobotAgent();
+        robot.robotId = robotId;
+        robot.currentX = x;
+        robot.currentY = y;
+        robot.targetX = targetX;
+        robot.targetY = targetY;
+        robot.isStatic = isStatic;
+        robot.color = color;
+        return robot;
+    }
+
+    void setReplayPosition(int x, int y) {
+        this.currentX = x;
+        this.currentY = y;
+    }
+
     // ============ PUBLIC GETTERS ============
 
     public String getRobotId() { return robotId; }
@@ -1125,5 +2175,7 @@ public class RobotAgent extends Agent {
     public boolean isInDeadlock() { return inDeadlock; }
     public boolean isTemporarilyMoving() { return temporarilyMoving; }
     public int getRequestCount() { return requestCount; }
-    public void setMoving(boolean moving) { this.isMoving = moving; }
+    public int getConsecutiveBlocks() { return consecutiveBlocks; }
+    public int getDeferredRequestCount() { return pendingRequests.size(); }
+    public void setMoving(boolean moving) { this.isMoving = moving; wake(); }
 }
\ No newline at end of file
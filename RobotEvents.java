@@ -0,0 +1,87 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// Java Flight Recorder events for the coordination protocol, viewable in JMC next to GC and
+// thread activity. Call sites fill fields only after shouldCommit(), so a disabled event costs
+// an allocation the JIT removes and a single flag check.
+public final class RobotEvents {
+    private static final String CATEGORY = "Robot Coordination";
+
+    private RobotEvents() {}
+
+    @Name("aldi.RobotMove")
+    @Label("Robot Move")
+    @Description("A robot moved one cell; duration includes waiting for the grid lock")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class Move extends Event {
+        @Label("Robot") public String robotId;
+        @Label("From X") public int fromX;
+        @Label("From Y") public int fromY;
+        @Label("To X") public int toX;
+        @Label("To Y") public int toY;
+        @Label("Lamport Clock") public int clock;
+        @Label("Request To Move") @Timespan(Timespan.NANOSECONDS) public long requestToMove;
+        @Label("Granted Move") @Description("False for unrequested fallback moves") public boolean granted;
+    }
+
+    @Name("aldi.CellRequest")
+    @Label("Cell Request")
+    @Description("A REQUEST for a cell was handled by its receiver")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class Request extends Event {
+        @Label("Robot") public String robotId;
+        @Label("Requester") public String requester;
+        @Label("Cell X") public int cellX;
+        @Label("Cell Y") public int cellY;
+        @Label("Request Clock") public int requestClock;
+        @Label("Lamport Clock") public int clock;
+        @Label("Decision") public String decision;
+    }
+
+    @Name("aldi.CellGrant")
+    @Label("Cell Grant")
+    @Description("An AGREE (or static refusal) arrived for the robot's outstanding request")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class Grant extends Event {
+        @Label("Robot") public String robotId;
+        @Label("Grantor") public String grantor;
+        @Label("Cell X") public int cellX;
+        @Label("Cell Y") public int cellY;
+        @Label("Lamport Clock") public int clock;
+        @Label("Wait") @Timespan(Timespan.NANOSECONDS) public long wait;
+        @Label("Refused") public boolean refused;
+    }
+
+    @Name("aldi.CellRelease")
+    @Label("Cell Release")
+    @Description("A RELEASE arrived; a deferred request may have been granted")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class Release extends Event {
+        @Label("Robot") public String robotId;
+        @Label("Releaser") public String releaser;
+        @Label("Lamport Clock") public int clock;
+        @Label("Granted Deferred") public boolean grantedDeferred;
+        @Label("Still Deferred") public int stillDeferred;
+    }
+
+    @Name("aldi.Deadlock")
+    @Label("Deadlock Detected")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class Deadlock extends Event {
+        @Label("Robot") public String robotId;
+        @Label("X") public int x;
+        @Label("Y") public int y;
+        @Label("Consecutive Blocks") public int consecutiveBlocks;
+        @Label("Lamport Clock") public int clock;
+    }
+}
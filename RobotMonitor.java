@@ -0,0 +1,26 @@
+// Per-agent telemetry, registered for the lifetime of the agent. Reads the agent's volatile
+// state directly; nothing here synchronizes with the agent's own thread.
+public class RobotMonitor implements RobotMonitorMBean {
+    private final RobotAgent robot;
+
+    public RobotMonitor(RobotAgent robot) {
+        this.robot = robot;
+    }
+
+    @Override public String getRobotId() { return robot.getRobotId(); }
+    @Override public int getCurrentX() { return robot.getCurrentX(); }
+    @Override public int getCurrentY() { return robot.getCurrentY(); }
+    @Override public int getTargetX() { return robot.getTargetX(); }
+    @Override public int getTargetY() { return robot.getTargetY(); }
+    @Override public int getLogicalClock() { return robot.getLogicalClock(); }
+    @Override public int getRequestCount() { return robot.getRequestCount(); }
+    @Override public int getConsecutiveBlocks() { return robot.getConsecutiveBlocks(); }
+    @Override public int getDeferredRequests() { return robot.getDeferredRequestCount(); }
+    @Override public boolean isStatic() { return robot.isStatic(); }
+    @Override public boolean isRequesting() { return robot.isRequesting(); }
+    @Override public boolean isInDeadlock() { return robot.isInDeadlock(); }
+
+    @Override public boolean isAtTarget() {
+        return robot.getCurrentX() == robot.getTargetX() && robot.getCurrentY() == robot.getTargetY();
+    }
+}
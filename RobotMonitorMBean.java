@@ -0,0 +1,16 @@
+// JMX view of one robot agent (see RobotMonitor)
+public interface RobotMonitorMBean {
+    String getRobotId();
+    int getCurrentX();
+    int getCurrentY();
+    int getTargetX();
+    int getTargetY();
+    int getLogicalClock();
+    int getRequestCount();
+    int getConsecutiveBlocks();
+    int getDeferredRequests();
+    boolean isStatic();
+    boolean isRequesting();
+    boolean isInDeadlock();
+    boolean isAtTarget();
+}
@@ -0,0 +1,32 @@
+// Priority a robot attaches to its cell requests. Higher wins the grant decision; ties fall
+// back to the Ricart-Agrawala order (older timestamp, then robot id). Weights are read from
+// system properties so runs can favour urgent tasks, robots close to their target, or robots
+// that have waited long. The waiting-age term keeps low-priority robots from starving.
+public final class RobotPriority {
+    public static final int URGENCY_WEIGHT = Integer.getInteger("priority.urgencyWeight", 100);
+    public static final int DISTANCE_WEIGHT = Integer.getInteger("priority.distanceWeight", 10);
+    public static final int AGE_WEIGHT = Integer.getInteger("priority.agePerSecond", 20);
+
+    private RobotPriority() {
+    }
+
+    // urgency: task urgency from the scenario (0 = normal); remainingDistance: Manhattan cells
+    // to the target, fewer is better; waitingMillis: time since the robot last made progress
+    public static int of(int urgency, int remainingDistance, long waitingMillis) {
+        long priority = (long) URGENCY_WEIGHT * urgency - (long) DISTANCE_WEIGHT * remainingDistance +
+                AGE_WEIGHT * (waitingMillis / 1000);
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, priority));
+    }
+
+    // True if a request (priority, timestamp, id) goes before ours
+    public static boolean precedes(int priority, int timestamp, String robotId,
+                                   int ourPriority, int ourTimestamp, String ourId) {
+        if (priority != ourPriority) {
+            return priority > ourPriority;
+        }
+        if (timestamp != ourTimestamp) {
+            return timestamp < ourTimestamp;
+        }
+        return robotId.compareTo(ourId) < 0;
+    }
+}
@@ -0,0 +1,237 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Saved simulation state that a fresh JADE container can resume from. Obstacles are saved as
+// the site layout (file and revision) plus the cells edited on top of it, read from the grid
+// snapshot current when the checkpoint began; being immutable, the snapshot is read on the
+// writer thread without the grid lock. Each agent then adds its own protocol state,
+// together with the cell it stands in at that moment, from its own thread the next time it
+// polls its mailbox, and makes no further move until every agent has added its state (or the
+// capture times out). The positions therefore form one consistent cut of the fleet.
+// Message-protocol state that only makes sense against the other robots' in-flight messages
+// is not saved: deferred requests, cell leases and reserved segments are re-derived as the
+// resumed robots ask for cells again. The file is written on a background thread.
+public class SimulationCheckpoint {
+    public static final long CAPTURE_TIMEOUT_MS = 5000; // time agents get to add their state
+    private static final int MAGIC = 0x52434B50; // "RCKP"
+    private static final int VERSION = 2;
+
+    private final int rows;
+    private final int cols;
+    private final String layoutFile; // site layout the edits apply to, "" without one
+    private final long layoutRevision;
+    private GridSnapshot view; // obstacles at the start of the capture, until editedCells is read from it
+    private int[] editedCells; // x * cols + y of cells differing from the layout (all blocked cells without one)
+    private final List<RobotState> robots = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch pending;
+
+    // Everything an agent needs to carry on where it left off
+    public static class RobotState {
+        public String robotId;
+        public int x = -1, y = -1; // cell held when the state was taken, -1 if none
+        public int targetX, targetY;
+        public boolean isStatic;
+        public int requestsNeededToMove;
+        public int originalX, originalY;
+        public int logicalClock;
+        public int requestCount;
+        public int consecutiveBlocks;
+        public boolean temporarilyMoving;
+        public int tempTargetX, tempTargetY;
+        public int moveState; // AdaptiveStaticBehaviour state, 0 for moving robots
+        public String planningMode;
+        public boolean requesting; // had a REQUEST out; re-issued from scratch on restore
+        public int requestedCellX = -1, requestedCellY = -1;
+    }
+
+    SimulationCheckpoint(GridSnapshot view, int expectedRobots) {
+        this(view.getRows(), view.getCols(), view.getBase() == null ? "" : view.getBase().getFile().toString(),
+                view.getBase() == null ? 0 : view.getBase().getRevision(), null, expectedRobots);
+        this.view = view;
+    }
+
+    private SimulationCheckpoint(int rows, int cols, String layoutFile, long layoutRevision, int[] editedCells,
+                                 int expectedRobots) {
+        this.rows = rows;
+        this.cols = cols;
+        this.layoutFile = layoutFile;
+        this.layoutRevision = layoutRevision;
+        this.editedCells = editedCells;
+        this.pending = new CountDownLatch(expectedRobots);
+    }
+
+    // ============ CAPTURE ============
+
+    public void addRobot(RobotState state) {
+        robots.add(state);
+        pending.countDown();
+    }
+
+    // Waits until every expected agent has added its state; false on timeout
+    public boolean awaitRobots(long timeoutMillis) throws InterruptedException {
+        return pending.await(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // ============ ACCESSORS ============
+
+    public int getRows() { return rows; }
+    public int getCols() { return cols; }
+    public String getLayoutFile() { return layoutFile; }
+    public long getLayoutRevision() { return layoutRevision; }
+
+    public int[] getEditedCells() {
+        return editedCells().clone();
+    }
+
+    // Visits only the snapshot's edited chunks, never the mapped layout
+    private synchronized int[] editedCells() {
+        if (editedCells == null) {
+            int[] count = {0};
+            view.forEachEdit(cell -> count[0]++);
+            int[] cells = new int[count[0]];
+            int[] next = {0};
+            view.forEachEdit(cell -> cells[next[0]++] = cell);
+            editedCells = cells;
+            view = null;
+        }
+        return editedCells;
+    }
+
+    public List<RobotState> getRobots() {
+        synchronized (robots) {
+            return new ArrayList<>(robots);
+        }
+    }
+
+    // Position the robot recorded with its state, or null for a robot that held no cell
+    public int[] getPosition(String robotId) {
+        for (RobotState s : getRobots()) {
+            if (s.robotId.equals(robotId)) {
+                return s.x < 0 ? null : new int[]{s.x, s.y};
+            }
+        }
+        return null;
+    }
+
+    // ============ FILE FORMAT ============
+
+    // Written to a temporary file and moved into place, so a crash never leaves half a checkpoint
+    public void write(Path file) throws IOException {
+        List<RobotState> states = getRobots();
+        int[] edited = editedCells();
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Channels.newOutputStream(channel)), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(rows);
+            out.writeInt(cols);
+            out.writeUTF(layoutFile);
+            out.writeLong(layoutRevision);
+            out.writeInt(edited.length);
+            for (int cell : edited) {
+                out.writeInt(cell);
+            }
+            out.writeInt(states.size());
+            for (RobotState s : states) {
+                writeRobot(out, s);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static SimulationCheckpoint read(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Channels.newInputStream(channel)), 64 * 1024))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a simulation checkpoint: " + file);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported checkpoint version " + version);
+            }
+            int rows = in.readInt();
+            int cols = in.readInt();
+            String layoutFile = in.readUTF();
+            long layoutRevision = in.readLong();
+            int[] edited = new int[in.readInt()];
+            for (int i = 0; i < edited.length; i++) {
+                edited[i] = in.readInt();
+            }
+            int robotCount = in.readInt();
+            SimulationCheckpoint checkpoint = new SimulationCheckpoint(rows, cols, layoutFile, layoutRevision,
+                    edited, robotCount);
+            for (int i = 0; i < robotCount; i++) {
+                checkpoint.addRobot(readRobot(in));
+            }
+            return checkpoint;
+        }
+    }
+
+    private static void writeRobot(DataOutputStream out, RobotState s) throws IOException {
+        out.writeUTF(s.robotId);
+        out.writeInt(s.x);
+        out.writeInt(s.y);
+        out.writeInt(s.targetX);
+        out.writeInt(s.targetY);
+        out.writeBoolean(s.isStatic);
+        out.writeInt(s.requestsNeededToMove);
+        out.writeInt(s.originalX);
+        out.writeInt(s.originalY);
+        out.writeInt(s.logicalClock);
+        out.writeInt(s.requestCount);
+        out.writeInt(s.consecutiveBlocks);
+        out.writeBoolean(s.temporarilyMoving);
+        out.writeInt(s.tempTargetX);
+        out.writeInt(s.tempTargetY);
+        out.writeInt(s.moveState);
+        out.writeUTF(s.planningMode);
+        out.writeBoolean(s.requesting);
+        out.writeInt(s.requestedCellX);
+        out.writeInt(s.requestedCellY);
+    }
+
+    private static RobotState readRobot(DataInputStream in) throws IOException {
+        RobotState s = new RobotState();
+        s.robotId = in.readUTF();
+        s.x = in.readInt();
+        s.y = in.readInt();
+        s.targetX = in.readInt();
+        s.targetY = in.readInt();
+        s.isStatic = in.readBoolean();
+        s.requestsNeededToMove = in.readInt();
+        s.originalX = in.readInt();
+        s.originalY = in.readInt();
+        s.logicalClock = in.readInt();
+        s.requestCount = in.readInt();
+        s.consecutiveBlocks = in.readInt();
+        s.temporarilyMoving = in.readBoolean();
+        s.tempTargetX = in.readInt();
+        s.tempTargetY = in.readInt();
+        s.moveState = in.readInt();
+        s.planningMode = in.readUTF();
+        s.requesting = in.readBoolean();
+        s.requestedCellX = in.readInt();
+        s.requestedCellY = in.readInt();
+        return s;
+    }
+}
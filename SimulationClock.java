@@ -0,0 +1,55 @@
+// Simulated time for the agents. Every interval and timeout in the robots is expressed in
+// simulated milliseconds; the clock runs them faster than the wall clock by the chosen speed,
+// so the same scenario can be watched at 1x or run as a regression at 100x under real JADE.
+// Speed can change mid-run: simulated time stays continuous and only its rate changes.
+public class SimulationClock {
+    public enum Speed {
+        X1("1x", 1),
+        X10("10x", 10),
+        X100("100x", 100),
+        MAX("Max", 1000); // every interval shrinks to about the JADE message latency
+
+        private final String label;
+        private final long factor;
+
+        Speed(String label, long factor) {
+            this.label = label;
+            this.factor = factor;
+        }
+
+        public long getFactor() {
+            return factor;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private Speed speed = Speed.X1;
+    private long simBase = System.currentTimeMillis(); // simulated time at wallBase
+    private long wallBase = simBase;
+
+    // Current simulated time in milliseconds
+    public synchronized long now() {
+        return simBase + (System.currentTimeMillis() - wallBase) * speed.factor;
+    }
+
+    public synchronized void setSpeed(Speed speed) {
+        long wall = System.currentTimeMillis();
+        simBase = simBase + (wall - wallBase) * this.speed.factor;
+        wallBase = wall;
+        this.speed = speed;
+    }
+
+    public synchronized Speed getSpeed() {
+        return speed;
+    }
+
+    // Wall-clock milliseconds to wait for a simulated interval; at least 1, as JADE reads
+    // block(0) as "until the next message"
+    public synchronized long toWall(long simMillis) {
+        return Math.max(1, simMillis / speed.factor);
+    }
+}
@@ -0,0 +1,139 @@
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Live counters and latency histograms for a simulation run. Agents record from their own
+// threads without locking; snapshot() gives a consistent-enough copy for display.
+public class SimulationMetrics {
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder requestsSent = new LongAdder();
+    private final LongAdder messagesSent = new LongAdder(); // every ACL message, all protocols
+    private final LongAdder tokenTransfers = new LongAdder();
+    private final LongAdder localEntries = new LongAdder(); // cells entered on a token already held
+    private final LongAdder segments = new LongAdder(); // multi-cell reservations granted
+    private final LongAdder segmentCells = new LongAdder();
+    private final LongAdder agreesReceived = new LongAdder();
+    private final LongAdder refusals = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder deadlockDetections = new LongAdder();
+    private final LongAdder alternatePaths = new LongAdder();
+    private final LongAdder collisionsPrevented = new LongAdder(); // occupyCell calls rejected by Grid
+    private final LongAdder idleNanos = new LongAdder(); // ready to move but held back by MOVE_INTERVAL
+    private final Map<String, LongAdder> movesPerRobot = new ConcurrentHashMap<>();
+    private final LatencyHistogram requestToAgree = new LatencyHistogram();
+    private final LatencyHistogram launchToFirstMotion = new LatencyHistogram();
+    private volatile long launchNanos = 0;
+
+    public static class Snapshot {
+        public final long moves, requestsSent, agreesReceived, refusals, retries;
+        public final long messagesSent, tokenTransfers, localEntries, segments, segmentCells;
+        public final long deadlockDetections, alternatePaths, collisionsPrevented, idleMillis;
+        public final long agreeCount, agreeP50Micros, agreeP99Micros, agreeMaxMicros;
+        public final long firstMotionCount, firstMotionMaxMicros;
+        public final Map<String, Long> movesPerRobot;
+
+        private Snapshot(SimulationMetrics m) {
+            moves = m.moves.sum();
+            requestsSent = m.requestsSent.sum();
+            messagesSent = m.messagesSent.sum();
+            tokenTransfers = m.tokenTransfers.sum();
+            localEntries = m.localEntries.sum();
+            segments = m.segments.sum();
+            segmentCells = m.segmentCells.sum();
+            agreesReceived = m.agreesReceived.sum();
+            refusals = m.refusals.sum();
+            retries = m.retries.sum();
+            deadlockDetections = m.deadlockDetections.sum();
+            alternatePaths = m.alternatePaths.sum();
+            collisionsPrevented = m.collisionsPrevented.sum();
+            idleMillis = m.idleNanos.sum() / 1_000_000;
+            agreeCount = m.requestToAgree.getCount();
+            agreeP50Micros = m.requestToAgree.getPercentileMicros(50);
+            agreeP99Micros = m.requestToAgree.getPercentileMicros(99);
+            agreeMaxMicros = m.requestToAgree.getMaxMicros();
+            firstMotionCount = m.launchToFirstMotion.getCount();
+            firstMotionMaxMicros = m.launchToFirstMotion.getMaxMicros();
+            Map<String, Long> perRobot = new TreeMap<>();
+            for (Map.Entry<String, LongAdder> e : m.movesPerRobot.entrySet()) {
+                perRobot.put(e.getKey(), e.getValue().sum());
+            }
+            movesPerRobot = Collections.unmodifiableMap(perRobot);
+        }
+
+        public String summaryLine() {
+            return String.format("Moves: %d | Messages: %d | Req→AGREE p50/p99: %.1f/%.1f ms | REFUSE: %d | Retries: %d | Deadlocks: %d",
+                    moves, messagesSent, agreeP50Micros / 1000.0, agreeP99Micros / 1000.0, refusals, retries, deadlockDetections);
+        }
+    }
+
+    // ============ RECORDING ============
+
+    public void recordMove(String robotId) {
+        moves.increment();
+        movesPerRobot.computeIfAbsent(robotId, k -> new LongAdder()).increment();
+    }
+
+    public void recordRequestSent() { requestsSent.increment(); }
+    public void recordMessageSent() { messagesSent.increment(); }
+    public void recordTokenTransfer() { tokenTransfers.increment(); }
+    public void recordLocalEntry() { localEntries.increment(); }
+
+    public void recordSegment(int cells) {
+        segments.increment();
+        segmentCells.add(cells);
+    }
+    public void recordRefusal() { refusals.increment(); }
+    public void recordRetry() { retries.increment(); }
+    public void recordDeadlock() { deadlockDetections.increment(); }
+    public void recordAlternatePath() { alternatePaths.increment(); }
+    public void recordCollisionPrevented() { collisionsPrevented.increment(); }
+    public void recordIdleNanos(long nanos) { idleNanos.add(nanos); }
+
+    public void recordAgree(long requestSentNanos) {
+        agreesReceived.increment();
+        if (requestSentNanos > 0) {
+            requestToAgree.recordNanos(System.nanoTime() - requestSentNanos);
+        }
+    }
+
+    // Launch of a scenario; each robot's first move is measured from here
+    public void markLaunch() {
+        launchNanos = System.nanoTime();
+    }
+
+    public void recordFirstMotion() {
+        long launch = launchNanos;
+        if (launch > 0) {
+            launchToFirstMotion.recordNanos(System.nanoTime() - launch);
+        }
+    }
+
+    // ============ READING ============
+
+    public Snapshot snapshot() {
+        return new Snapshot(this);
+    }
+
+    public void reset() {
+        moves.reset();
+        requestsSent.reset();
+        messagesSent.reset();
+        tokenTransfers.reset();
+        localEntries.reset();
+        segments.reset();
+        segmentCells.reset();
+        agreesReceived.reset();
+        refusals.reset();
+        retries.reset();
+        deadlockDetections.reset();
+        alternatePaths.reset();
+        collisionsPrevented.reset();
+        idleNanos.reset();
+        movesPerRobot.clear();
+        requestToAgree.reset();
+        launchToFirstMotion.reset();
+        launchNanos = 0;
+    }
+}
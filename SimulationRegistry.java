@@ -0,0 +1,38 @@
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Process-wide lookup of the shared simulation objects. A migrating agent cannot carry the
+// grid or the GUI with it, so it carries only the simulation id and looks them up again in
+// afterMove on the container it arrived at.
+public final class SimulationRegistry {
+    private static final AtomicInteger NEXT_ID = new AtomicInteger(1);
+    private static final Map<Integer, Grid> GRIDS = new ConcurrentHashMap<>();
+    private static final Map<Integer, MainFrame> FRAMES = new ConcurrentHashMap<>();
+
+    private SimulationRegistry() {
+    }
+
+    // Id of the simulation running on this grid, registering it on first use
+    public static synchronized int register(Grid grid, MainFrame mainFrame) {
+        for (Map.Entry<Integer, Grid> e : GRIDS.entrySet()) {
+            if (e.getValue() == grid) {
+                return e.getKey();
+            }
+        }
+        int id = NEXT_ID.getAndIncrement();
+        GRIDS.put(id, grid);
+        if (mainFrame != null) {
+            FRAMES.put(id, mainFrame);
+        }
+        return id;
+    }
+
+    public static Grid getGrid(int simulationId) {
+        return GRIDS.get(simulationId);
+    }
+
+    public static MainFrame getMainFrame(int simulationId) {
+        return FRAMES.get(simulationId);
+    }
+}
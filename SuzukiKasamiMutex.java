@@ -0,0 +1,180 @@
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+// Suzuki-Kasami token mutual exclusion with one token per square region of the grid. A robot
+// may enter a cell only while it holds the token of the cell's region. Holding the token already
+// makes entry free; otherwise the robot broadcasts one request (region, sequence number) and the
+// holder hands the token over when it is not inside the region's critical section.
+//
+// The token carries the last granted sequence number per robot and the queue of robots still
+// waiting for it. Each robot owns one instance and uses it from its own agent thread only.
+// The instance travels with a migrating agent; grid and transport are attached again on arrival.
+public class SuzukiKasamiMutex implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final String REQUEST_CONVERSATION = "sk-request";
+    public static final String TOKEN_CONVERSATION = "sk-token";
+    public static final int DEFAULT_REGION_SIZE = 3;
+
+    // How the mutex reaches the other robots; implemented by the agent on top of ACL messages
+    public interface Transport {
+        void broadcastRequest(int region, int sequence);
+        void sendToken(String robotId, int region, String token);
+    }
+
+    private final String self;
+    private transient Grid grid;
+    private transient Transport transport;
+    private final int regionSize;
+    private final int regionCols;
+    private final Map<Integer, Map<String, Integer>> requestNumbers = new HashMap<>(); // RN, per region
+    private final Map<Integer, Token> held = new HashMap<>();
+    private final Set<Integer> inside = new HashSet<>(); // regions whose critical section we are in
+    private final Set<Integer> outstanding = new HashSet<>(); // requested, token not yet here
+
+    static final class Token implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final Map<String, Integer> lastGranted = new HashMap<>(); // LN
+        final ArrayDeque<String> queue = new ArrayDeque<>();
+
+        int lastGranted(String robotId) {
+            return lastGranted.getOrDefault(robotId, 0);
+        }
+
+        // "robot=ln,robot=ln|robot,robot"
+        String encode() {
+            StringBuilder sb = new StringBuilder();
+            for (Map.Entry<String, Integer> e : lastGranted.entrySet()) {
+                if (sb.length() > 0) sb.append(',');
+                sb.append(e.getKey()).append('=').append(e.getValue());
+            }
+            sb.append('|').append(String.join(",", queue));
+            return sb.toString();
+        }
+
+        static Token decode(String encoded) {
+            Token token = new Token();
+            int bar = encoded.indexOf('|');
+            for (String entry : encoded.substring(0, bar).split(",")) {
+                int eq = entry.indexOf('=');
+                if (eq > 0) {
+                    token.lastGranted.put(entry.substring(0, eq), Integer.parseInt(entry.substring(eq + 1)));
+                }
+            }
+            for (String robotId : encoded.substring(bar + 1).split(",")) {
+                if (!robotId.isEmpty()) {
+                    token.queue.add(robotId);
+                }
+            }
+            return token;
+        }
+    }
+
+    public SuzukiKasamiMutex(String self, Grid grid, Transport transport, int regionSize) {
+        this.self = self;
+        this.grid = grid;
+        this.transport = transport;
+        this.regionSize = regionSize;
+        this.regionCols = (grid.getCols() + regionSize - 1) / regionSize;
+    }
+
+    public void reattach(Grid grid, Transport transport) {
+        this.grid = grid;
+        this.transport = transport;
+    }
+
+    public int regionOf(int x, int y) {
+        return (x / regionSize) * regionCols + y / regionSize;
+    }
+
+    public boolean holds(int region) {
+        return held.containsKey(region);
+    }
+
+    public boolean isOutstanding(int region) {
+        return outstanding.contains(region);
+    }
+
+    // ============ CRITICAL SECTION ============
+
+    // Enters the region's critical section if we hold its token (claiming it when nobody has
+    // yet); otherwise broadcasts a request once and returns false until the token arrives.
+    // The claim is tried again on every call while a request is outstanding: a holder that left
+    // without a waiter to hand to returned the token to the grid, and will never answer.
+    public boolean tryEnter(int region) {
+        if (!held.containsKey(region) && grid.claimRegionToken(region)) {
+            held.put(region, new Token());
+            outstanding.remove(region);
+        }
+        if (held.containsKey(region)) {
+            inside.add(region);
+            return true;
+        }
+        if (outstanding.add(region)) {
+            int sequence = numbers(region).merge(self, 1, Integer::sum);
+            transport.broadcastRequest(region, sequence);
+        }
+        return false;
+    }
+
+    // Leaves the critical section and passes the token to the next waiting robot, if any.
+    // With nobody waiting the token stays here, so our next entry costs no messages.
+    public void exit(int region) {
+        inside.remove(region);
+        Token token = held.get(region);
+        if (token == null) {
+            return;
+        }
+        Map<String, Integer> rn = numbers(region);
+        token.lastGranted.put(self, rn.getOrDefault(self, 0));
+        for (Map.Entry<String, Integer> e : rn.entrySet()) {
+            String robotId = e.getKey();
+            if (!robotId.equals(self) && e.getValue() == token.lastGranted(robotId) + 1 &&
+                    !token.queue.contains(robotId)) {
+                token.queue.add(robotId);
+            }
+        }
+        String next = token.queue.poll();
+        if (next != null) {
+            held.remove(region);
+            transport.sendToken(next, region, token.encode());
+        }
+    }
+
+    // ============ MESSAGES ============
+
+    public void onRequest(int region, String requester, int sequence) {
+        numbers(region).merge(requester, sequence, Math::max);
+        Token token = held.get(region);
+        if (token != null && !inside.contains(region) &&
+                numbers(region).get(requester) == token.lastGranted(requester) + 1) {
+            token.queue.remove(requester);
+            held.remove(region);
+            transport.sendToken(requester, region, token.encode());
+        }
+    }
+
+    public void onToken(int region, String encoded) {
+        held.put(region, Token.decode(encoded));
+        outstanding.remove(region);
+    }
+
+    // Hands every held token to its next waiter, or back to the grid when nobody waits
+    public void releaseAll() {
+        for (Integer region : new HashSet<>(held.keySet())) {
+            exit(region);
+            if (held.remove(region) != null) {
+                grid.returnRegionToken(region);
+            }
+        }
+    }
+
+    private Map<String, Integer> numbers(int region) {
+        return requestNumbers.computeIfAbsent(region, k -> new HashMap<>());
+    }
+}
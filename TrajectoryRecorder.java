@@ -0,0 +1,117 @@
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Move history of every robot, kept as primitive cell/tick rings so memory stays bounded no
+// matter how long the run. Each ring starts small and doubles up to the configured trail
+// length (-Dtrajectory.trailLength), after which the oldest entries are overwritten.
+public class TrajectoryRecorder {
+    public static final int DEFAULT_TRAIL_LENGTH = 256;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int trailLength;
+    private final Map<String, Trail> trails = new ConcurrentHashMap<>();
+    private final AtomicInteger tick = new AtomicInteger(); // global move sequence
+    private volatile int generation = 0; // bumped by clear() so viewers drop cached drawings
+
+    public TrajectoryRecorder(int trailLength) {
+        this.trailLength = Math.max(2, trailLength);
+    }
+
+    public static class Trail {
+        private final String robotId;
+        private final int rgb;
+        private final int maxLength;
+        private int[] cells;
+        private int[] ticks;
+        private int start = 0; // ring index of the oldest retained entry
+        private int size = 0;
+        private long total = 0; // entries ever appended
+
+        Trail(String robotId, int rgb, int maxLength) {
+            this.robotId = robotId;
+            this.rgb = rgb;
+            this.maxLength = maxLength;
+            this.cells = new int[Math.min(INITIAL_CAPACITY, maxLength)];
+            this.ticks = new int[cells.length];
+        }
+
+        synchronized void add(int cell, int tick) {
+            if (size == cells.length && cells.length < maxLength) {
+                grow(Math.min(maxLength, cells.length * 2));
+            }
+            if (size < cells.length) {
+                int index = (start + size) % cells.length;
+                cells[index] = cell;
+                ticks[index] = tick;
+                size++;
+            } else {
+                cells[start] = cell; // Full ring: overwrite the oldest entry
+                ticks[start] = tick;
+                start = (start + 1) % cells.length;
+            }
+            total++;
+        }
+
+        private void grow(int capacity) {
+            int[] newCells = new int[capacity];
+            int[] newTicks = new int[capacity];
+            for (int i = 0; i < size; i++) {
+                newCells[i] = cells[(start + i) % cells.length];
+                newTicks[i] = ticks[(start + i) % cells.length];
+            }
+            cells = newCells;
+            ticks = newTicks;
+            start = 0;
+        }
+
+        // Cells appended after the first `since` entries, preceded by the entry before them so
+        // the caller can join the new segments onto what it already drew. Clamped to the ring.
+        public synchronized int[] cellsSince(long since) {
+            long first = Math.max(total - size, since - 1);
+            if (first < 0) first = 0;
+            int count = (int) (total - first);
+            int[] out = new int[count];
+            int offset = (int) (first - (total - size));
+            for (int i = 0; i < count; i++) {
+                out[i] = cells[(start + offset + i) % cells.length];
+            }
+            return out;
+        }
+
+        // Tick of the most recent entry, or -1 when empty
+        public synchronized int getLastTick() {
+            return size == 0 ? -1 : ticks[(start + size - 1) % cells.length];
+        }
+
+        public synchronized long getTotal() { return total; }
+        public synchronized long getFirstRetained() { return total - size; }
+        public String getRobotId() { return robotId; }
+        public int getRgb() { return rgb; }
+    }
+
+    // Called with the starting cell on setup and with each new cell after a move
+    public void record(String robotId, int rgb, int cell) {
+        trails.computeIfAbsent(robotId, id -> new Trail(id, rgb, trailLength))
+                .add(cell, tick.incrementAndGet());
+    }
+
+    public Collection<Trail> getTrails() {
+        return trails.values();
+    }
+
+    public int getTrailLength() {
+        return trailLength;
+    }
+
+    public int getGeneration() {
+        return generation;
+    }
+
+    public void clear() {
+        trails.clear();
+        tick.set(0);
+        generation++;
+    }
+}